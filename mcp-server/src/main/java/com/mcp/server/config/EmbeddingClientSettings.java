@@ -0,0 +1,51 @@
+package com.mcp.server.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Réglages du client d'embeddings : concurrence adaptative (AIMD), budget de tokens par
+ * minute, reprise après un 429 et regroupement des requêtes unitaires.
+ */
+@Component
+@Getter
+public class EmbeddingClientSettings {
+
+    // Nombre de requêtes simultanées au démarrage, ajusté ensuite entre min et max
+    @Value("${spring.embedding.client.initial-concurrency:4}")
+    private int initialConcurrency;
+
+    @Value("${spring.embedding.client.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${spring.embedding.client.max-concurrency:32}")
+    private int maxConcurrency;
+
+    // Facteur appliqué à la limite de concurrence à chaque 429
+    @Value("${spring.embedding.client.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    // Budget du fournisseur (0 = pas de limite côté client)
+    @Value("${spring.embedding.client.tokens-per-minute:0}")
+    private long tokensPerMinute;
+
+    @Value("${spring.embedding.client.max-retries:5}")
+    private int maxRetries;
+
+    // Attente après un 429 sans Retry-After, doublée à chaque nouvel échec
+    @Value("${spring.embedding.client.initial-backoff:PT1S}")
+    private Duration initialBackoff;
+
+    @Value("${spring.embedding.client.max-backoff:PT60S}")
+    private Duration maxBackoff;
+
+    // Fenêtre pendant laquelle les embeddings unitaires (requêtes de recherche) sont regroupés
+    @Value("${spring.embedding.client.coalesce.linger:5ms}")
+    private Duration linger;
+
+    @Value("${spring.embedding.client.coalesce.max-size:32}")
+    private int coalesceMaxSize;
+}
@@ -0,0 +1,45 @@
+package com.mcp.server.config;
+
+import lombok.Getter;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Fournisseur et modèle d'embeddings. L'identifiant du modèle est enregistré dans vectordb
+ * au premier démarrage : des vecteurs de deux modèles différents ne sont pas comparables,
+ * même à dimension égale, et les caches d'embeddings sont séparés par modèle.
+ */
+@Component
+@Getter
+public class EmbeddingModelSettings {
+
+    @Value("${spring.embedding.provider:openai}")
+    private String provider;
+
+    // Modèle ONNX (URI classpath:, file: ou https:), all-MiniLM-L6-v2 téléchargé depuis GitHub par défaut
+    @Value("${spring.embedding.local.model-uri:}")
+    private String localModelUri;
+
+    // Identifiant explicite, par exemple pour déplacer le fichier du modèle sans changer de modèle
+    @Value("${spring.embedding.model-id:}")
+    private String configuredModelId;
+
+    public String normalizedProvider() {
+        return provider.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public String getModelId() {
+        if (!configuredModelId.isBlank()) {
+            return configuredModelId;
+        }
+        return switch (normalizedProvider()) {
+            case "openai" -> "openai:" + OpenAiApi.DEFAULT_EMBEDDING_MODEL;
+            case "onnx" -> "onnx:" + (localModelUri.isBlank() ? TransformersEmbeddingModel.DEFAULT_ONNX_MODEL : localModelUri);
+            default -> normalizedProvider();
+        };
+    }
+}
@@ -19,6 +19,9 @@ public class McpServerSecurity {
         return http
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/mcp").authenticated()
+                // Sondes publiques, le reste d'actuator (métriques, état des index) exige un jeton
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").authenticated()
                 .anyRequest().permitAll()
             )
             .oauth2ResourceServer(oauth -> oauth.jwt(withDefaults()))
@@ -1,12 +1,19 @@
 package com.mcp.server.config;
 
+import com.mcp.server.service.AdaptiveEmbeddingModel;
+import com.mcp.server.service.HashEmbeddingModel;
+import com.mcp.server.service.LocalEmbeddingModel;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
@@ -16,20 +23,34 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Configuration
 @EnableJpaRepositories(basePackages = "com.mcp.server.repository")
 @EnableTransactionManagement
+@RequiredArgsConstructor
 @Slf4j
 public class VectorDatabaseConfig {
 
+    private static final Pattern REGCONFIG = Pattern.compile("'(\\w+)'::regconfig");
+
+    private final VectorIndexSettings indexSettings;
+    private final EmbeddingModelSettings modelSettings;
+
     @Value("${spring.vector.datasource.url}")
     private String vectorDbUrl;
 
@@ -39,6 +60,23 @@ public class VectorDatabaseConfig {
     @Value("${spring.vector.datasource.password}")
     private String vectorDbPassword;
 
+    @Value("${spring.vector.maintenance.enabled:true}")
+    private boolean maintenanceEnabled;
+
+    // Tokenizer du modèle ONNX (URI classpath:, file: ou https:), celui d'all-MiniLM-L6-v2 par défaut
+    @Value("${spring.embedding.local.tokenizer-uri:}")
+    private String localTokenizerUri;
+
+    @Value("${spring.embedding.local.cache-directory:${java.io.tmpdir}/mcp-onnx-model}")
+    private String localCacheDirectory;
+
+    // Inférences simultanées : chaque session ONNX utilise déjà tous les coeurs pour une inférence
+    @Value("${spring.embedding.local.threads:1}")
+    private int localThreads;
+
+    @Value("${spring.embedding.local.batch-size:32}")
+    private int localBatchSize;
+
     @PostConstruct
     public void init() {
         // Créer l'extension pgvector et la table document_chunks
@@ -55,20 +93,59 @@ public class VectorDatabaseConfig {
                         id BIGSERIAL PRIMARY KEY,
                         document_id VARCHAR(255) NOT NULL,
                         content TEXT NOT NULL,
-                        embedding vector(1536),
+                        embedding vector(%d),
                         chunk_index INTEGER NOT NULL,
                         chunk_size INTEGER NOT NULL
                     )
-                    """;
+                    """.formatted(indexSettings.getDimensions());
                 stmt.execute(createTableSql);
                 log.info("Table document_chunks créée ou déjà existante");
+
+                // Modèle qui a produit les vecteurs stockés
+                ensureEmbeddingModel(stmt);
+
+                // Empreinte des chunks pour réutiliser les embeddings déjà calculés
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_content_hash_idx ON document_chunks (content_hash)");
+
+                // Métadonnées filtrables recopiées depuis metadb (filtres appliqués dans la requête ANN)
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS uploaded_by VARCHAR(255)");
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS file_type VARCHAR(50)");
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS tags TEXT[]");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_document_id_idx ON document_chunks (document_id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_uploaded_by_idx ON document_chunks (uploaded_by)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_file_type_idx ON document_chunks (file_type)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_tags_idx ON document_chunks USING GIN (tags)");
+
+                // Quasi-doublons : empreinte SimHash et lien vers le chunk canonique
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS simhash BIGINT");
+                stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS duplicate_of BIGINT");
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_duplicate_of_idx ON document_chunks (duplicate_of)"
+                        + " WHERE duplicate_of IS NOT NULL");
+
+                // Embedding de niveau document (centroïde des chunks) pour la recherche en deux étapes
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS document_embeddings (
+                        document_id VARCHAR(255) PRIMARY KEY,
+                        embedding vector(%d) NOT NULL,
+                        chunk_count INTEGER NOT NULL,
+                        uploaded_by VARCHAR(255),
+                        file_type VARCHAR(50),
+                        tags TEXT[],
+                        updated_at TIMESTAMP NOT NULL DEFAULT now()
+                    )
+                    """.formatted(indexSettings.getDimensions()));
+                stmt.execute("CREATE INDEX IF NOT EXISTS document_embeddings_embedding_idx"
+                        + " ON document_embeddings USING hnsw (embedding vector_cosine_ops)");
+
+                // Colonne plein texte pour la recherche hybride
+                ensureContentTsv(conn, stmt);
                 
                 // Créer un index pour améliorer les performances de recherche
                 try {
-                    stmt.execute("CREATE INDEX IF NOT EXISTS document_chunks_embedding_idx ON document_chunks USING ivfflat (embedding vector_cosine_ops) WITH (lists = 100)");
-                    log.info("Index vectoriel créé ou déjà existant");
+                    ensureVectorIndex(conn, stmt);
                 } catch (SQLException e) {
-                    log.warn("Impossible de créer l'index vectoriel (peut-être déjà existant): {}", e.getMessage());
+                    log.warn("Impossible de créer l'index vectoriel: {}", e.getMessage());
                 }
             }
         } catch (SQLException e) {
@@ -76,6 +153,177 @@ public class VectorDatabaseConfig {
         }
     }
 
+    /**
+     * Enregistre le modèle d'embeddings au premier démarrage et refuse ensuite un autre modèle
+     * tant que des chunks existent : leurs vecteurs (et ceux réutilisés par empreinte) ne
+     * seraient plus comparables aux embeddings des requêtes, même à dimension égale.
+     */
+    private void ensureEmbeddingModel(Statement stmt) throws SQLException {
+        String modelId = modelSettings.getModelId();
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS embedding_model (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                model_id TEXT NOT NULL,
+                recorded_at TIMESTAMP NOT NULL DEFAULT now()
+            )
+            """);
+        String recorded = null;
+        try (ResultSet rs = stmt.executeQuery("SELECT model_id FROM embedding_model WHERE id = 1")) {
+            if (rs.next()) {
+                recorded = rs.getString(1);
+            }
+        }
+        if (modelId.equals(recorded)) {
+            return;
+        }
+        if (recorded != null) {
+            try (ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM document_chunks)")) {
+                rs.next();
+                if (rs.getBoolean(1)) {
+                    throw new IllegalStateException("Embedding model mismatch: stored vectors were produced by '"
+                            + recorded + "' but the configured model is '" + modelId
+                            + "'; restore spring.embedding.provider or re-index into an empty vector store");
+                }
+            }
+        }
+        try (PreparedStatement ps = stmt.getConnection().prepareStatement("""
+                INSERT INTO embedding_model (id, model_id) VALUES (1, ?)
+                ON CONFLICT (id) DO UPDATE SET model_id = EXCLUDED.model_id, recorded_at = now()
+                """)) {
+            ps.setString(1, modelId);
+            ps.executeUpdate();
+        }
+        log.info("Modèle d'embeddings enregistré : {}", modelId);
+    }
+
+    /**
+     * Colonne {@code content_tsv} de la recherche hybride, ajoutée sans valeur (pas de
+     * réécriture de la table au démarrage) et calculée à l'écriture par un trigger ; les chunks
+     * antérieurs et l'index GIN sont traités en arrière-plan par ChunkMetadataBackfill. Une
+     * colonne calculée avec une autre configuration plein texte que
+     * {@code spring.vector.hybrid.text-search-config} est refusée : les requêtes ne
+     * correspondraient plus aux vecteurs stockés.
+     */
+    private void ensureContentTsv(Connection conn, Statement stmt) throws SQLException {
+        String config = indexSettings.getTextSearchConfig();
+        if (!config.matches("[a-z_]+")) {
+            throw new IllegalStateException("Invalid text search config: " + config);
+        }
+
+        // Expression de la colonne générée (premières versions) ou corps de la fonction du trigger
+        String definition = null;
+        boolean columnExists = false;
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT c.generation_expression, p.prosrc
+                FROM information_schema.columns c
+                LEFT JOIN pg_proc p ON p.proname = 'document_chunks_content_tsv'
+                WHERE c.table_name = 'document_chunks' AND c.column_name = 'content_tsv'
+                """)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    columnExists = true;
+                    definition = rs.getString(1) != null ? rs.getString(1) : rs.getString(2);
+                }
+            }
+        }
+
+        if (columnExists && definition != null) {
+            Matcher matcher = REGCONFIG.matcher(definition);
+            String current = matcher.find() ? matcher.group(1) : null;
+            if (!config.equals(current)) {
+                throw new IllegalStateException("Text search config mismatch: content_tsv is built with '" + current
+                        + "' but spring.vector.hybrid.text-search-config is '" + config
+                        + "'; restore the setting or drop the content_tsv column to rebuild it");
+            }
+        } else {
+            stmt.execute("""
+                CREATE OR REPLACE FUNCTION document_chunks_content_tsv() RETURNS trigger LANGUAGE plpgsql AS $$
+                BEGIN
+                    NEW.content_tsv := to_tsvector('%s'::regconfig, NEW.content);
+                    RETURN NEW;
+                END
+                $$
+                """.formatted(config));
+            stmt.execute("ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS content_tsv tsvector");
+        }
+
+        try (ResultSet rs = stmt.executeQuery("""
+                SELECT 1 FROM pg_trigger
+                WHERE tgname = 'document_chunks_content_tsv_trg' AND tgrelid = 'document_chunks'::regclass
+                """)) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (ResultSet rs = stmt.executeQuery("""
+                SELECT is_generated FROM information_schema.columns
+                WHERE table_name = 'document_chunks' AND column_name = 'content_tsv'
+                """)) {
+            if (rs.next() && "ALWAYS".equals(rs.getString(1))) {
+                return;
+            }
+        }
+        stmt.execute("""
+            CREATE TRIGGER document_chunks_content_tsv_trg
+            BEFORE INSERT OR UPDATE OF content ON document_chunks
+            FOR EACH ROW EXECUTE FUNCTION document_chunks_content_tsv()
+            """);
+        log.info("Colonne content_tsv ({}) ajoutée, remplissage et index GIN en arrière-plan", config);
+    }
+
+    /**
+     * Crée l'index ANN s'il n'existe pas. Un index dont le type ou les paramètres ne
+     * correspondent plus à la configuration est conservé : le reconstruire ici bloquerait le
+     * démarrage (et les écritures) le temps de parcourir toute la table, VectorIndexMaintenance
+     * le remplace en arrière-plan avec CREATE INDEX CONCURRENTLY.
+     */
+    private void ensureVectorIndex(Connection conn, Statement stmt) throws SQLException {
+        String existing = null;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT indexdef FROM pg_indexes WHERE indexname = ?")) {
+            ps.setString(1, VectorIndexSettings.INDEX_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    existing = rs.getString(1);
+                }
+            }
+        }
+
+        if (existing != null && !indexSettings.matchesConfiguration(existing)) {
+            if (indexSettings.getIndexType() == VectorIndexSettings.IndexType.NONE) {
+                stmt.execute("DROP INDEX IF EXISTS " + VectorIndexSettings.INDEX_NAME);
+                log.info("Index vectoriel supprimé (spring.vector.index.type=none): {}", existing);
+            } else if (maintenanceEnabled) {
+                log.warn("Index vectoriel différent de la configuration, conservé jusqu'à son remplacement"
+                        + " en arrière-plan: {}", existing);
+            } else {
+                stmt.execute("DROP INDEX IF EXISTS " + VectorIndexSettings.INDEX_NAME);
+                log.info("Index vectoriel obsolète supprimé (maintenance désactivée): {}", existing);
+                existing = null;
+            }
+        }
+        if (existing != null || indexSettings.getIndexType() == VectorIndexSettings.IndexType.NONE) {
+            return;
+        }
+
+        int lists = indexSettings.getIvfflatLists();
+        if (indexSettings.getIndexType() == VectorIndexSettings.IndexType.IVFFLAT) {
+            // Les centroïdes IVFFlat calculés sur une table vide sont inutilisables
+            long rows;
+            try (ResultSet rs = stmt.executeQuery("SELECT count(*) FROM document_chunks")) {
+                rs.next();
+                rows = rs.getLong(1);
+            }
+            if (rows == 0) {
+                log.info("Table document_chunks vide, création de l'index IVFFlat différée");
+                return;
+            }
+            lists = indexSettings.targetLists(rows);
+        }
+        stmt.execute(indexSettings.createIndexSql(lists));
+        log.info("Index vectoriel {} créé", indexSettings.getIndexType());
+    }
+
     @Bean
     @Primary
     @ConfigurationProperties("spring.datasource")
@@ -111,12 +359,74 @@ public class VectorDatabaseConfig {
         return new JdbcTemplate(dataSource);
     }
 
+    // Déclaré explicitement : un second gestionnaire de transactions désactive celui de JPA auto-configuré
     @Bean
-    public EmbeddingModel embeddingModel(@Value("${spring.ai.openai.api-key}") String apiKey) {
-        var openAiApi = OpenAiApi.builder()
-                .apiKey(apiKey)
-                .build();
-        return new OpenAiEmbeddingModel(openAiApi);
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean
+    @Qualifier("vectorTransactionManager")
+    public PlatformTransactionManager vectorTransactionManager(@Qualifier("vectorDataSource") DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    // Transactions de vectordb (SET LOCAL, insertion d'un document, suppressions)
+    @Bean
+    @Qualifier("vectorTransactionTemplate")
+    public TransactionTemplate vectorTransactionTemplate(
+            @Qualifier("vectorTransactionManager") PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Fournisseur d'embeddings : {@code openai} (API distante), {@code onnx} (modèle local
+     * exécuté dans le processus, sans réseau) ou {@code hash} (vecteurs déterministes pour les
+     * tests de charge et benchmarks hors ligne).
+     */
+    @Bean
+    public EmbeddingModel embeddingModel(@Value("${spring.ai.openai.api-key:}") String apiKey,
+                                         EmbeddingClientSettings clientSettings,
+                                         MeterRegistry meterRegistry) throws Exception {
+        log.info("Fournisseur d'embeddings : {} ({})", modelSettings.getProvider(), modelSettings.getModelId());
+        return switch (modelSettings.normalizedProvider()) {
+            case "openai" -> {
+                // Clé requise pour ce seul fournisseur : onnx et hash démarrent sans
+                if (apiKey.isBlank()) {
+                    throw new IllegalStateException("spring.ai.openai.api-key is required by the openai embedding provider");
+                }
+                var openAiApi = OpenAiApi.builder()
+                        .apiKey(apiKey)
+                        .build();
+                // Concurrence adaptative, budget de tokens et reprise sur 429 autour du client OpenAI
+                yield new AdaptiveEmbeddingModel(new OpenAiEmbeddingModel(openAiApi), clientSettings, meterRegistry);
+            }
+            // Le regroupement des requêtes unitaires profite aussi à l'inférence locale
+            case "onnx" -> new AdaptiveEmbeddingModel(localEmbeddingModel(), clientSettings, meterRegistry);
+            case "hash" -> new HashEmbeddingModel(indexSettings.getDimensions());
+            default -> throw new IllegalArgumentException("Unknown embedding provider: " + modelSettings.getProvider());
+        };
+    }
+
+    private EmbeddingModel localEmbeddingModel() throws Exception {
+        TransformersEmbeddingModel onnx = new TransformersEmbeddingModel();
+        if (!modelSettings.getLocalModelUri().isBlank()) {
+            onnx.setModelResource(modelSettings.getLocalModelUri());
+        }
+        if (!localTokenizerUri.isBlank()) {
+            onnx.setTokenizerResource(localTokenizerUri);
+        }
+        onnx.setResourceCacheDirectory(localCacheDirectory);
+        onnx.afterPropertiesSet();
+
+        // La colonne vector(n) est créée avec spring.vector.dimensions : les deux doivent correspondre
+        int dimensions = onnx.dimensions();
+        if (dimensions != indexSettings.getDimensions()) {
+            throw new IllegalStateException("Local embedding model produces " + dimensions
+                    + " dimensions but spring.vector.dimensions is " + indexSettings.getDimensions());
+        }
+        return new LocalEmbeddingModel(onnx, localThreads, localBatchSize);
     }
 
     @Bean
@@ -0,0 +1,248 @@
+package com.mcp.server.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Paramètres de l'index ANN de {@code document_chunks} et réglages de recherche associés.
+ *
+ * <p>L'index est HNSW ({@code m}, {@code ef_construction}) ou IVFFlat ({@code lists}). À la
+ * requête, chaque {@link SearchProfile} fixe {@code hnsw.ef_search} ou {@code ivfflat.probes} :
+ * plus la valeur est haute, meilleur est le rappel et plus la latence augmente.
+ */
+@Component
+@Getter
+public class VectorIndexSettings {
+
+    public static final String INDEX_NAME = "document_chunks_embedding_idx";
+
+    public static final String CONTENT_TSV_INDEX_NAME = "document_chunks_content_tsv_idx";
+
+    // Valeur maximale acceptée par pgvector pour hnsw.ef_search
+    public static final int MAX_EF_SEARCH = 1000;
+
+    private static final Pattern LISTS_PATTERN = Pattern.compile("lists='(\\d+)'");
+
+    public enum IndexType {
+        HNSW, IVFFLAT, NONE
+    }
+
+    public enum SearchProfile {
+        FAST, BALANCED, ACCURATE;
+
+        public static SearchProfile parse(String value) {
+            return value == null || value.isBlank()
+                    ? BALANCED
+                    : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Représentation indexée des vecteurs. La colonne garde toujours le vecteur complet
+     * (float32), utilisé pour reclasser les candidats ; en {@code HALFVEC} (float16, 2×) ou
+     * {@code BINARY} (1 bit par dimension, 32×), seul l'index porte la version quantifiée,
+     * via un index sur expression.
+     */
+    public enum StorageMode {
+        FULL, HALFVEC, BINARY
+    }
+
+    // Paramètre de session à positionner (SET LOCAL) pour une requête
+    public record SearchTuning(String setting, int value) {
+    }
+
+    public record IterativeScan(String setting, String mode) {
+    }
+
+    @Value("${spring.vector.dimensions:1536}")
+    private int dimensions;
+
+    @Value("${spring.vector.storage.mode:full}")
+    private StorageMode storageMode;
+
+    // Nombre de candidats approchés reclassés par résultat demandé
+    @Value("${spring.vector.storage.rerank-factor:4}")
+    private int rerankFactor;
+
+    // Configuration plein texte de la colonne content_tsv ('simple' conserve les identifiants tels quels)
+    @Value("${spring.vector.hybrid.text-search-config:simple}")
+    private String textSearchConfig;
+
+    // Parcours itératif des recherches filtrées : strict_order, relaxed_order ou off
+    @Value("${spring.vector.search.iterative-scan:strict_order}")
+    private String iterativeScanMode;
+
+    @Value("${spring.vector.index.type:hnsw}")
+    private IndexType indexType;
+
+    @Value("${spring.vector.index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${spring.vector.index.hnsw.ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${spring.vector.index.ivfflat.lists:100}")
+    private int ivfflatLists;
+
+    // lists ≈ sqrt(lignes), recalculé par la maintenance au lieu d'une valeur fixe
+    @Value("${spring.vector.index.ivfflat.auto-lists:true}")
+    private boolean ivfflatAutoLists;
+
+    @Value("${spring.vector.search.profiles.fast.ef-search:40}")
+    private int fastEfSearch;
+
+    @Value("${spring.vector.search.profiles.balanced.ef-search:100}")
+    private int balancedEfSearch;
+
+    @Value("${spring.vector.search.profiles.accurate.ef-search:400}")
+    private int accurateEfSearch;
+
+    @Value("${spring.vector.search.profiles.fast.probes:1}")
+    private int fastProbes;
+
+    @Value("${spring.vector.search.profiles.balanced.probes:10}")
+    private int balancedProbes;
+
+    @Value("${spring.vector.search.profiles.accurate.probes:40}")
+    private int accurateProbes;
+
+    public String createIndexSql(int lists) {
+        return "CREATE INDEX IF NOT EXISTS " + INDEX_NAME + " ON document_chunks " + indexBody(lists);
+    }
+
+    // Construction sans verrou bloquant les écritures, sous un nom temporaire
+    public String createIndexConcurrentlySql(String indexName, int lists) {
+        return "CREATE INDEX CONCURRENTLY " + indexName + " ON document_chunks " + indexBody(lists);
+    }
+
+    private String indexBody(int lists) {
+        String column = indexedExpression() + " " + operatorClass();
+        return switch (indexType) {
+            case HNSW -> "USING hnsw (" + column + ")"
+                    + " WITH (m = " + hnswM + ", ef_construction = " + hnswEfConstruction + ")";
+            case IVFFLAT -> "USING ivfflat (" + column + ") WITH (lists = " + lists + ")";
+            case NONE -> throw new IllegalStateException("No vector index configured");
+        };
+    }
+
+    // L'expression doit être identique dans l'index et dans l'ORDER BY pour que l'index serve
+    private String indexedExpression() {
+        return switch (storageMode) {
+            case FULL -> "embedding";
+            case HALFVEC -> "(CAST(embedding AS halfvec(" + dimensions + ")))";
+            case BINARY -> "(CAST(binary_quantize(embedding) AS bit(" + dimensions + ")))";
+        };
+    }
+
+    private String operatorClass() {
+        return switch (storageMode) {
+            case FULL -> "vector_cosine_ops";
+            case HALFVEC -> "halfvec_cosine_ops";
+            case BINARY -> "bit_hamming_ops";
+        };
+    }
+
+    /**
+     * Distance approchée servant à présélectionner les candidats, pour un vecteur de requête
+     * passé en paramètre nommé.
+     */
+    public String approximateDistanceSql(String queryParam) {
+        return approximateDistanceExpression(":" + queryParam);
+    }
+
+    // Même expression, le vecteur de requête étant une expression SQL (colonne d'une jointure LATERAL)
+    public String approximateDistanceExpression(String query) {
+        return switch (storageMode) {
+            case FULL -> "embedding <=> " + query;
+            case HALFVEC -> "CAST(embedding AS halfvec(" + dimensions + ")) <=> CAST(" + query
+                    + " AS halfvec(" + dimensions + "))";
+            case BINARY -> "CAST(binary_quantize(embedding) AS bit(" + dimensions + ")) <~> CAST(binary_quantize(CAST("
+                    + query + " AS vector)) AS bit(" + dimensions + "))";
+        };
+    }
+
+    public boolean isQuantized() {
+        return storageMode != StorageMode.FULL;
+    }
+
+    public int targetLists(long rows) {
+        return ivfflatAutoLists ? (int) Math.max(1, Math.round(Math.sqrt(rows))) : ivfflatLists;
+    }
+
+    /**
+     * Vérifie qu'une définition d'index existante ({@code pg_indexes.indexdef}) correspond
+     * à la configuration, pour reconstruire l'index quand son type, son mode de stockage ou ses
+     * paramètres changent.
+     * Un {@code lists} négatif ignore ce paramètre (ajusté par la maintenance).
+     */
+    public boolean matches(String indexDefinition, int lists) {
+        if (!indexDefinition.contains(" " + operatorClass())) {
+            return false;
+        }
+        return switch (indexType) {
+            case HNSW -> indexDefinition.contains("USING hnsw")
+                    && indexDefinition.contains("m='" + hnswM + "'")
+                    && indexDefinition.contains("ef_construction='" + hnswEfConstruction + "'");
+            case IVFFLAT -> indexDefinition.contains("USING ivfflat")
+                    && (lists < 0 || indexDefinition.contains("lists='" + lists + "'"));
+            case NONE -> false;
+        };
+    }
+
+    // Avec auto-lists, l'écart sur lists est corrigé par VectorIndexMaintenance et ignoré ici
+    public boolean matchesConfiguration(String indexDefinition) {
+        return matches(indexDefinition, ivfflatAutoLists ? -1 : ivfflatLists);
+    }
+
+    // Valeur de lists d'un index IVFFlat existant, -1 si absente
+    public static int parseLists(String indexDefinition) {
+        Matcher matcher = LISTS_PATTERN.matcher(indexDefinition);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    public SearchTuning tuning(SearchProfile profile) {
+        return switch (indexType) {
+            case HNSW -> new SearchTuning("hnsw.ef_search", efSearch(profile));
+            case IVFFLAT -> new SearchTuning("ivfflat.probes", switch (profile) {
+                case FAST -> fastProbes;
+                case BALANCED -> balancedProbes;
+                case ACCURATE -> accurateProbes;
+            });
+            case NONE -> null;
+        };
+    }
+
+    /**
+     * Nombre maximal de lignes qu'un parcours de l'index peut renvoyer : ef_search borne un
+     * parcours HNSW et ne peut dépasser {@link #MAX_EF_SEARCH}. Au-delà (pagination profonde,
+     * candidats à reclasser), la recherche s'arrête comme en fin de résultats.
+     */
+    public int maxScanDepth() {
+        return indexType == IndexType.HNSW ? MAX_EF_SEARCH : Integer.MAX_VALUE;
+    }
+
+    public int efSearch(SearchProfile profile) {
+        return switch (profile) {
+            case FAST -> fastEfSearch;
+            case BALANCED -> balancedEfSearch;
+            case ACCURATE -> accurateEfSearch;
+        };
+    }
+
+    public IterativeScan iterativeScan() {
+        if ("off".equals(iterativeScanMode)) {
+            return null;
+        }
+        return switch (indexType) {
+            case HNSW -> new IterativeScan("hnsw.iterative_scan", iterativeScanMode);
+            // IVFFlat ne connaît que l'ordre relâché
+            case IVFFLAT -> new IterativeScan("ivfflat.iterative_scan", "relaxed_order");
+            case NONE -> null;
+        };
+    }
+}
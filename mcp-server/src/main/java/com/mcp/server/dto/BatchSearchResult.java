@@ -0,0 +1,9 @@
+package com.mcp.server.dto;
+
+import java.util.List;
+
+/**
+ * Résultats d'une des requêtes de {@code searchDocumentsBatch}.
+ */
+public record BatchSearchResult(String query, List<DocumentSearchResult> results) {
+}
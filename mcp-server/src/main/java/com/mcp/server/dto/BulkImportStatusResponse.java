@@ -0,0 +1,30 @@
+package com.mcp.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportStatusResponse {
+    private String importId;
+    private String status;
+    private String source;
+    private long documents;
+    private long skipped;
+    private long failed;
+    private long chunks;
+    private int inFlight;           // Documents en cours de téléchargement ou d'indexation
+    private String checkpoint;
+    private double docsPerSecond;   // Débit depuis le dernier (re)démarrage
+    private double chunksPerSecond;
+    private long elapsedSeconds;
+    private List<String> failedKeys;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+}
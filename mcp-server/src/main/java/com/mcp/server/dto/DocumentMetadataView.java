@@ -0,0 +1,30 @@
+package com.mcp.server.dto;
+
+import com.mcp.server.entity.DocumentMetadata;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Projection légère et immuable des métadonnées utilisées par la recherche.
+ */
+public record DocumentMetadataView(
+        String documentId,
+        String title,
+        String author,
+        String fileType,
+        String uploadedBy,
+        List<String> tags,
+        LocalDateTime uploadedAt) {
+
+    public static DocumentMetadataView of(DocumentMetadata metadata) {
+        return new DocumentMetadataView(
+                metadata.getDocumentId(),
+                metadata.getTitle(),
+                metadata.getAuthor(),
+                metadata.getFileType(),
+                metadata.getUploadedBy(),
+                List.copyOf(metadata.getTags()),
+                metadata.getUploadedAt());
+    }
+}
@@ -16,5 +16,9 @@ public class DocumentSearchResult {
     private String content;
     private List<String> tags;
     private LocalDateTime uploadedAt;
+    private String documentId;
+    private Double distance;    // Distance cosinus (0 = identique)
+    private Double score;       // Similarité cosinus = 1 - distance
+    private String cursor;      // À repasser dans searchDocuments pour obtenir la suite
 }
 
@@ -10,5 +10,6 @@ import lombok.NoArgsConstructor;
 public class DocumentUploadResponse {
     private String documentId;
     private String message;
+    private String jobId;       // Renseigné uniquement pour une ingestion asynchrone
 }
 
@@ -0,0 +1,22 @@
+package com.mcp.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionStatusResponse {
+    private String jobId;
+    private String documentId;
+    private String filename;
+    private String status;
+    private int totalChunks;
+    private int indexedChunks;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.mcp.server.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position d'un résultat dans un parcours par distance croissante : {@code (distance, id)}
+ * du dernier chunk renvoyé et nombre de résultats déjà parcourus. Transmis aux clients sous
+ * forme opaque.
+ */
+public record SearchCursor(double distance, long id, int seen) {
+
+    public String encode() {
+        String raw = distance + ":" + id + ":" + seen;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            return new SearchCursor(Double.parseDouble(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.mcp.server.dto;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Restriction de la recherche à un sous-ensemble de chunks : documents, propriétaire, type
+ * de fichier et tags (au moins un). Appliquée dans la requête ANN elle-même, grâce aux
+ * métadonnées dénormalisées sur {@code document_chunks}.
+ */
+public record SearchFilter(Collection<String> documentIds, String uploadedBy, String fileType,
+                           Collection<String> tags) {
+
+    public static final SearchFilter NONE = new SearchFilter(List.of(), null, null, List.of());
+
+    public static SearchFilter of(Collection<String> documentIds) {
+        return of(documentIds, null, null, null);
+    }
+
+    public static SearchFilter of(Collection<String> documentIds, String uploadedBy, String fileType,
+                                  Collection<String> tags) {
+        SearchFilter filter = new SearchFilter(
+                documentIds != null ? List.copyOf(documentIds) : List.of(),
+                uploadedBy != null && !uploadedBy.isBlank() ? uploadedBy : null,
+                fileType != null && !fileType.isBlank() ? fileType : null,
+                tags != null ? List.copyOf(tags) : List.of());
+        return filter.isEmpty() ? NONE : filter;
+    }
+
+    public boolean isEmpty() {
+        return documentIds.isEmpty() && uploadedBy == null && fileType == null && tags.isEmpty();
+    }
+}
@@ -0,0 +1,20 @@
+package com.mcp.server.dto;
+
+import java.util.Locale;
+
+/**
+ * {@code SEMANTIC} : similarité vectorielle seule. {@code HYBRID} : fusion (RRF) de la
+ * similarité vectorielle et de la recherche plein texte, pour les identifiants exacts
+ * (références, codes d'erreur, noms) que les embeddings captent mal. {@code TWO_STAGE} :
+ * sélection des documents les plus proches sur leur centroïde, puis recherche restreinte à
+ * leurs chunks.
+ */
+public enum SearchMode {
+    SEMANTIC, HYBRID, TWO_STAGE;
+
+    public static SearchMode parse(String value) {
+        return value == null || value.isBlank()
+                ? SEMANTIC
+                : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
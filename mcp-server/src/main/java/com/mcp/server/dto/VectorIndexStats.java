@@ -0,0 +1,20 @@
+package com.mcp.server.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Résultat du dernier passage de maintenance de l'index vectoriel, exposé via actuator.
+ */
+public record VectorIndexStats(
+        LocalDateTime runAt,
+        long durationMs,
+        String indexType,
+        long liveRows,
+        long deadRows,
+        long modifiedSinceAnalyze,
+        Integer currentLists,
+        Integer targetLists,
+        List<String> actions,
+        String error) {
+}
@@ -0,0 +1,65 @@
+package com.mcp.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Import en masse et son point de reprise. Les objets sont traités dans l'ordre de leur clé :
+ * {@code checkpoint} est la dernière clé telle que toutes les précédentes sont terminées, un
+ * import interrompu reprend juste après.
+ */
+@Entity
+@Table(name = "bulk_imports")
+@Data
+@NoArgsConstructor
+public class BulkImport {
+
+    public enum SourceType {
+        PREFIX,     // Objets d'un bucket/préfixe MinIO
+        ARCHIVE     // Entrées d'une archive zip (conservée dans MinIO jusqu'à la fin de l'import)
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    private String importId;    // UUID
+
+    @Enumerated(EnumType.STRING)
+    private SourceType sourceType;
+
+    private String bucket;
+    private String prefix;          // Préfixe des objets, ou chemin de l'archive
+    private String tags;            // Tags appliqués à chaque document (comma-separated)
+    private String uploadedBy;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(length = 1024)
+    private String checkpoint;
+
+    private long documents;     // Documents indexés
+    private long skipped;       // Déjà présents (même contenu) ou vides
+    private long failed;
+    private long chunks;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // Premières clés en échec, pour les réimporter individuellement
+    @ElementCollection
+    private List<String> failedKeys = new ArrayList<>();
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
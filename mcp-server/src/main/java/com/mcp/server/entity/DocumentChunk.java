@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,5 +21,17 @@ public class DocumentChunk {
 
     private Integer chunkIndex;
     private Integer chunkSize;
+
+    private String contentHash; // SHA-256 du contenu, pour réutiliser les embeddings
+
+    // Copie des métadonnées filtrables du document (metadb), pour filtrer dans la requête ANN
+    private String uploadedBy;
+    private String fileType;
+    private List<String> tags;
+
+    private Long simhash;       // Empreinte SimHash, pour la détection des quasi-doublons
+    private Long duplicateOf;   // Chunk canonique dont celui-ci est un quasi-doublon (pas d'embedding propre)
+
+    private Double distance;    // Distance à la requête, renseignée par la recherche
 }
 
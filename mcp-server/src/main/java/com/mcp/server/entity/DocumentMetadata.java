@@ -10,12 +10,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "documents_metadata")
+@Table(name = "documents_metadata", indexes = @Index(name = "idx_documents_metadata_content_hash", columnList = "contentHash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DocumentMetadata {
 
+    public enum IndexingStatus {
+        INDEXING,   // chunks en cours d'insertion, le document peut être partiellement indexé
+        COMPLETED,
+        FAILED      // extraction ou indexation en échec, chunks partiels supprimés
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,12 +35,27 @@ public class DocumentMetadata {
     private Long fileSize;      // bytes
     private String storagePath; // path MinIO/S3
 
+    @Column(length = 64)
+    private String contentHash; // SHA-256 du fichier, pour détecter les ré-uploads
+
     @Column(columnDefinition = "TEXT")
     private String summary;     // Résumé généré
 
     @ElementCollection
     private List<String> tags = new ArrayList<>();
 
+    // Les documents antérieurs à la colonne sont considérés comme indexés
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "VARCHAR(16) DEFAULT 'COMPLETED'")
+    private IndexingStatus indexingStatus;
+
+    // Bail de l'instance qui indexe le document, renouvelé tant que l'indexation progresse
+    private LocalDateTime indexingHeartbeat;
+
+    public boolean isIndexed() {
+        return indexingStatus == null || indexingStatus == IndexingStatus.COMPLETED;
+    }
+
     private LocalDateTime uploadedAt;
     private String uploadedBy;  // Keycloak username
 }
@@ -0,0 +1,332 @@
+package com.mcp.server.index;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkVector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index HNSW embarqué dans le processus : la recherche ne fait plus d'aller-retour vers
+ * pgvector pour le calcul des voisins, seul le contenu des chunks retenus est lu en base.
+ *
+ * <p>PostgreSQL reste la référence : les nouveaux chunks ({@code id} supérieur au dernier
+ * indexé) sont ajoutés périodiquement, et l'index est reconstruit depuis
+ * {@code document_chunks} si ses fichiers sont absents, corrompus ou construits avec
+ * d'autres paramètres. Les ids étant réservés avant la vectorisation, des uploads
+ * concurrents valident leurs chunks dans le désordre : un id inférieur validé après la
+ * synchronisation d'un id supérieur est ajouté par le rapprochement périodique des ids.
+ *
+ * <p>Les chunks supprimés en base (suppression, réindexation, promotion d'un quasi-doublon
+ * sous un nouvel id) sont marqués supprimés dans le graphe : dès qu'une recherche ne les
+ * retrouve plus en base, et par le même rapprochement. Quand leur part dépasse
+ * {@code rebuild-deleted-ratio}, le graphe est reconstruit à côté puis substitué à l'ancien.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.vector.backend", havingValue = "embedded")
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedVectorIndex implements VectorSearchBackend {
+
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String GRAPH_FILE = "graph.bin";
+
+    private final VectorRepository vectorRepo;
+    private final VectorIndexSettings indexSettings;
+    private final ExactVectorSearch exactSearch;
+
+    @Value("${spring.vector.embedded.directory:${java.io.tmpdir}/mcp-vector-index}")
+    private Path directory;
+
+    @Value("${spring.vector.embedded.sync-batch-size:1000}")
+    private int syncBatchSize;
+
+    @Value("${spring.vector.embedded.rebuild-deleted-ratio:0.2}")
+    private double rebuildDeletedRatio;
+
+    // Un seul écrivain (synchronisation, rapprochement ou reconstruction) à la fois
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    // Les recherches lisent le graphe sous le verrou partagé, la substitution prend le verrou exclusif
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chunks retournés par le graphe mais absents de la base, à marquer supprimés
+    private final Set<Long> missingChunks = ConcurrentHashMap.newKeySet();
+    private MappedVectorStore vectors;
+    private volatile HnswGraph graph;
+
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(directory);
+            vectors = new MappedVectorStore(directory.resolve(VECTORS_FILE), indexSettings.getDimensions());
+            Path graphFile = directory.resolve(GRAPH_FILE);
+            if (Files.exists(graphFile)) {
+                try {
+                    graph = HnswGraph.load(graphFile, vectors, indexSettings.getHnswM(), indexSettings.getHnswEfConstruction());
+                    log.info("Index HNSW embarqué chargé ({} vecteurs)", graph.size());
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Index HNSW embarqué inutilisable, reconstruction depuis document_chunks: {}", e.getMessage());
+                }
+            }
+            reset();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open embedded vector index: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        swapLock.writeLock().lock();
+        try {
+            save();
+            vectors.close();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute les chunks insérés depuis la dernière synchronisation. Le premier passage, au
+     * démarrage, reconstruit l'index complet s'il a été réinitialisé.
+     */
+    @Scheduled(fixedDelayString = "${spring.vector.embedded.sync-interval:PT5S}")
+    public void sync() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int removed = applyMissingChunks();
+            long lastId = graph.maxChunkId();
+            int added = 0;
+            List<ChunkVector> batch;
+            while (!(batch = vectorRepo.findEmbeddingsAfter(lastId, syncBatchSize)).isEmpty()) {
+                for (ChunkVector chunk : batch) {
+                    graph.add(chunk.id(), chunk.embedding());
+                }
+                lastId = batch.get(batch.size() - 1).id();
+                added += batch.size();
+            }
+            if (added > 0 || removed > 0) {
+                save();
+            }
+            if (added > 0) {
+                log.info("Index HNSW embarqué: {} vecteurs ajoutés ({} au total)", added, graph.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Synchronisation de l'index HNSW embarqué échouée", e);
+        } finally {
+            syncing.set(false);
+        }
+    }
+
+    /**
+     * Rapproche le graphe de {@code document_chunks} (ids seuls) : ajoute les chunks validés
+     * hors de l'ordre des ids, marque ceux supprimés en base, puis reconstruit le graphe si la
+     * part de nœuds supprimés est trop grande.
+     */
+    @Scheduled(initialDelayString = "${spring.vector.embedded.reconcile-interval:PT10M}",
+            fixedDelayString = "${spring.vector.embedded.reconcile-interval:PT10M}")
+    public void reconcile() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int removed = applyMissingChunks();
+            ChunkIdDiff diff = diffChunkIds(graph.chunkIds());
+            removed += graph.delete(diff.removed());
+            int added = addChunks(diff.added());
+            int deleted = graph.deletedCount();
+            if (deleted > graph.size() * rebuildDeletedRatio) {
+                log.info("Index HNSW embarqué: {} nœuds supprimés sur {}, reconstruction", deleted, graph.size());
+                rebuild();
+            } else if (removed > 0 || added > 0) {
+                save();
+                log.info("Index HNSW embarqué: {} vecteurs rattrapés, {} supprimés ({} nœuds supprimés au total)",
+                        added, removed, deleted);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Rapprochement de l'index HNSW embarqué échoué", e);
+        } finally {
+            syncing.set(false);
+        }
+    }
+
+    @Override
+    public List<DocumentChunk> search(float[] queryVector, int limit, SearchProfile profile,
+                                      SearchFilter filter, Double maxDistance, SearchCursor after) {
+        // Le graphe ne sait pas filtrer : parcours exact du sous-ensemble, ou SQL s'il est trop grand
+        if (!filter.isEmpty()) {
+            return exactSearch.searchSubset(queryVector, filter, limit, maxDistance, after)
+                    .orElseGet(() -> vectorRepo.semanticSearch(queryVector, limit, profile, filter, maxDistance, after));
+        }
+
+        // Comme pour pgvector, ef doit couvrir les pages déjà parcourues
+        int k = (after != null ? after.seen() : 0) + limit;
+        List<HnswGraph.Neighbor> neighbors;
+        swapLock.readLock().lock();
+        try {
+            neighbors = new ArrayList<>(graph.search(queryVector, k, Math.max(indexSettings.efSearch(profile), k)));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        neighbors.sort(Comparator.comparingDouble(HnswGraph.Neighbor::distance)
+                .thenComparingLong(HnswGraph.Neighbor::chunkId));
+        neighbors.removeIf(neighbor -> (maxDistance != null && neighbor.distance() > maxDistance)
+                || (after != null && !isAfter(neighbor, after)));
+        if (neighbors.size() > limit) {
+            neighbors = neighbors.subList(0, limit);
+        }
+
+        Map<Long, DocumentChunk> chunks = vectorRepo.findChunksByIds(
+                neighbors.stream().map(HnswGraph.Neighbor::chunkId).toList());
+        List<DocumentChunk> results = new ArrayList<>(neighbors.size());
+        for (HnswGraph.Neighbor neighbor : neighbors) {
+            // Absent : supprimé en base depuis la dernière synchronisation, marqué au prochain passage
+            DocumentChunk chunk = chunks.get(neighbor.chunkId());
+            if (chunk != null) {
+                chunk.setDistance((double) neighbor.distance());
+                results.add(chunk);
+            } else {
+                missingChunks.add(neighbor.chunkId());
+            }
+        }
+        return results;
+    }
+
+    private static boolean isAfter(HnswGraph.Neighbor neighbor, SearchCursor after) {
+        int byDistance = Double.compare(neighbor.distance(), after.distance());
+        return byDistance > 0 || (byDistance == 0 && neighbor.chunkId() > after.id());
+    }
+
+    private int applyMissingChunks() {
+        if (missingChunks.isEmpty()) {
+            return 0;
+        }
+        Set<Long> removed = new HashSet<>(missingChunks);
+        missingChunks.removeAll(removed);
+        return graph.delete(removed);
+    }
+
+    private record ChunkIdDiff(Set<Long> removed, List<Long> added) {
+    }
+
+    // Parcours fusionné des ids du graphe et de ceux de la base, tous deux triés
+    private ChunkIdDiff diffChunkIds(long[] indexed) {
+        Set<Long> removed = new HashSet<>();
+        List<Long> added = new ArrayList<>();
+        int i = 0;
+        long lastId = 0;
+        List<Long> batch;
+        while (!(batch = vectorRepo.findEmbeddedChunkIdsAfter(lastId, syncBatchSize * 10)).isEmpty()) {
+            for (long id : batch) {
+                while (i < indexed.length && indexed[i] < id) {
+                    removed.add(indexed[i++]);
+                }
+                if (i < indexed.length && indexed[i] == id) {
+                    i++;
+                } else {
+                    added.add(id);
+                }
+            }
+            lastId = batch.get(batch.size() - 1);
+        }
+        while (i < indexed.length) {
+            removed.add(indexed[i++]);
+        }
+        return new ChunkIdDiff(removed, added);
+    }
+
+    private int addChunks(List<Long> ids) {
+        int added = 0;
+        for (int from = 0; from < ids.size(); from += syncBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + syncBatchSize, ids.size()));
+            for (ChunkVector chunk : vectorRepo.findEmbeddingsByIds(batch)) {
+                graph.add(chunk.id(), chunk.embedding());
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Reconstruit le graphe depuis la base dans un nouveau fichier de vecteurs, sans
+     * interrompre les recherches sur l'ancien, puis les substitue. Les nouveaux chunks ne sont
+     * pas synchronisés pendant la reconstruction.
+     */
+    private void rebuild() throws IOException {
+        Path rebuildFile = directory.resolve(VECTORS_FILE + ".rebuild");
+        Files.deleteIfExists(rebuildFile);
+        MappedVectorStore freshVectors = new MappedVectorStore(rebuildFile, indexSettings.getDimensions());
+        HnswGraph fresh = new HnswGraph(freshVectors, indexSettings.getHnswM(), indexSettings.getHnswEfConstruction());
+        try {
+            long lastId = 0;
+            List<ChunkVector> batch;
+            while (!(batch = vectorRepo.findEmbeddingsAfter(lastId, syncBatchSize)).isEmpty()) {
+                for (ChunkVector chunk : batch) {
+                    fresh.add(chunk.id(), chunk.embedding());
+                }
+                lastId = batch.get(batch.size() - 1).id();
+            }
+        } catch (RuntimeException e) {
+            freshVectors.close();
+            Files.deleteIfExists(rebuildFile);
+            throw e;
+        }
+
+        // Sans graphe sauvegardé, un arrêt avant la fin repart d'une reconstruction complète
+        Files.deleteIfExists(directory.resolve(GRAPH_FILE));
+        Files.move(rebuildFile, directory.resolve(VECTORS_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        MappedVectorStore retired;
+        swapLock.writeLock().lock();
+        try {
+            retired = vectors;
+            vectors = freshVectors;
+            graph = fresh;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        retired.close();
+        save();
+        log.info("Index HNSW embarqué reconstruit ({} vecteurs)", fresh.size());
+    }
+
+    private void reset() throws IOException {
+        if (vectors != null) {
+            vectors.close();
+        }
+        Files.deleteIfExists(directory.resolve(GRAPH_FILE));
+        Files.deleteIfExists(directory.resolve(VECTORS_FILE));
+        vectors = new MappedVectorStore(directory.resolve(VECTORS_FILE), indexSettings.getDimensions());
+        graph = new HnswGraph(vectors, indexSettings.getHnswM(), indexSettings.getHnswEfConstruction());
+    }
+
+    private void save() throws IOException {
+        graph.save(directory.resolve(GRAPH_FILE));
+    }
+}
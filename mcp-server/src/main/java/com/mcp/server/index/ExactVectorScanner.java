@@ -0,0 +1,162 @@
+package com.mcp.server.index;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Recherche exacte des k plus proches voisins par parcours complet d'une arène {@code float[]}
+ * (vecteurs contigus), avec les instructions SIMD de l'API Vector
+ * ({@code --add-modules jdk.incubator.vector}).
+ *
+ * <p>Au-delà de {@link #PARALLEL_THRESHOLD} vecteurs, l'arène est découpée en partitions
+ * parcourues en parallèle, chacune gardant ses k meilleurs dans un tas borné ; les tas sont
+ * ensuite fusionnés. Les distances suivent pgvector : {@code 1 - cosinus} ou produit scalaire
+ * négatif, départagées par id croissant.
+ */
+public class ExactVectorScanner {
+
+    static final int PARALLEL_THRESHOLD = 16_384;
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    public enum Metric {
+        COSINE, INNER_PRODUCT
+    }
+
+    public record Match(long id, float distance) {
+    }
+
+    // Critère d'exclusion appliqué pendant le parcours (curseur, distance maximale)
+    @FunctionalInterface
+    public interface MatchFilter {
+        boolean accept(long id, float distance);
+    }
+
+    private static final Comparator<Match> NEAREST_FIRST = Comparator.comparingDouble(Match::distance)
+            .thenComparingLong(Match::id);
+
+    private final int dimensions;
+    private final Metric metric;
+    private float[] arena;
+    private long[] ids;
+    private float[] norms;
+    private int size;
+
+    public ExactVectorScanner(int dimensions, int capacity, Metric metric) {
+        this.dimensions = dimensions;
+        this.metric = metric;
+        this.arena = new float[Math.max(capacity, 1) * dimensions];
+        this.ids = new long[Math.max(capacity, 1)];
+        this.norms = new float[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            norms = Arrays.copyOf(norms, size * 2);
+            arena = Arrays.copyOf(arena, size * 2 * dimensions);
+        }
+        System.arraycopy(vector, 0, arena, size * dimensions, dimensions);
+        ids[size] = id;
+        norms[size] = (float) Math.sqrt(dot(vector, 0, vector, 0, dimensions));
+        size++;
+    }
+
+    public List<Match> topK(float[] query, int k, MatchFilter filter) {
+        if (size == 0 || k <= 0) {
+            return List.of();
+        }
+        float queryNorm = (float) Math.sqrt(dot(query, 0, query, 0, dimensions));
+        if (size < PARALLEL_THRESHOLD) {
+            return sorted(scan(query, queryNorm, k, filter, 0, size));
+        }
+
+        int partitions = Math.min(Runtime.getRuntime().availableProcessors(), size / (PARALLEL_THRESHOLD / 4));
+        int step = (size + partitions - 1) / partitions;
+        return IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> scan(query, queryNorm, k, filter, p * step, Math.min(size, (p + 1) * step)))
+                .flatMap(PriorityQueue::stream)
+                .sorted(NEAREST_FIRST)
+                .limit(k)
+                .toList();
+    }
+
+    private PriorityQueue<Match> scan(float[] query, float queryNorm, int k, MatchFilter filter, int from, int to) {
+        // Tas borné : le pire des k retenus est en tête
+        PriorityQueue<Match> heap = new PriorityQueue<>(k + 1, NEAREST_FIRST.reversed());
+        for (int i = from; i < to; i++) {
+            float distance = distance(dot(arena, i * dimensions, query, 0, dimensions), norms[i], queryNorm);
+            if (heap.size() == k) {
+                Match worst = heap.peek();
+                if (distance > worst.distance() || (distance == worst.distance() && ids[i] > worst.id())) {
+                    continue;
+                }
+            }
+            if (filter != null && !filter.accept(ids[i], distance)) {
+                continue;
+            }
+            heap.add(new Match(ids[i], distance));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        return heap;
+    }
+
+    private float distance(float dot, float norm, float queryNorm) {
+        return switch (metric) {
+            case COSINE -> norm == 0 || queryNorm == 0 ? 1 : 1 - dot / (norm * queryNorm);
+            case INNER_PRODUCT -> -dot;
+        };
+    }
+
+    private static List<Match> sorted(PriorityQueue<Match> heap) {
+        List<Match> matches = new ArrayList<>(heap);
+        matches.sort(NEAREST_FIRST);
+        return matches;
+    }
+
+    /**
+     * Produit scalaire vectorisé : accumulation FMA par blocs de la largeur SIMD de la
+     * machine, puis boucle scalaire sur le reste.
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    // Référence scalaire, pour les tests et le benchmark
+    public static float dotScalar(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float result = 0;
+        for (int i = 0; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mcp.server.index;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkVector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Classement exact en mémoire avec {@link ExactVectorScanner}, utilisé quand un index ANN
+ * n'apporte rien : petits sous-ensembles filtrés et reclassement des candidats issus d'un
+ * index quantifié.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExactVectorSearch {
+
+    private final VectorRepository vectorRepo;
+    private final VectorIndexSettings indexSettings;
+
+    // Au-delà, le sous-ensemble est cherché en SQL plutôt que rapatrié : chaque vecteur transite
+    // en texte (~17 Ko en dimension 1536) à chaque recherche
+    @Value("${spring.vector.exact-scan.max-vectors:2000}")
+    private int maxVectors;
+
+    /**
+     * Parcours exact des chunks correspondant au filtre, ou vide si le sous-ensemble
+     * dépasse {@code max-vectors}. La taille est d'abord sondée sur les seuls ids, pour
+     * qu'un filtre large ne rapatrie aucun vecteur.
+     */
+    public Optional<List<DocumentChunk>> searchSubset(float[] queryVector, SearchFilter filter, int limit,
+                                                      Double maxDistance, SearchCursor after) {
+        if (vectorRepo.countEmbeddings(filter, maxVectors + 1) > maxVectors) {
+            log.debug("Sous-ensemble filtré trop grand pour un parcours exact (> {} vecteurs)", maxVectors);
+            return Optional.empty();
+        }
+        // Le sous-ensemble peut avoir grossi depuis le sondage
+        List<ChunkVector> subset = vectorRepo.findEmbeddings(filter, maxVectors + 1);
+        if (subset.size() > maxVectors) {
+            log.debug("Sous-ensemble filtré trop grand pour un parcours exact (> {} vecteurs)", maxVectors);
+            return Optional.empty();
+        }
+        return Optional.of(rank(queryVector, subset, limit, maxDistance, after));
+    }
+
+    public List<DocumentChunk> rank(float[] queryVector, List<ChunkVector> candidates, int limit,
+                                    Double maxDistance, SearchCursor after) {
+        ExactVectorScanner scanner = new ExactVectorScanner(indexSettings.getDimensions(), candidates.size(),
+                ExactVectorScanner.Metric.COSINE);
+        for (ChunkVector candidate : candidates) {
+            scanner.add(candidate.id(), candidate.embedding());
+        }
+        List<ExactVectorScanner.Match> matches = scanner.topK(queryVector, limit,
+                (id, distance) -> (maxDistance == null || distance <= maxDistance)
+                        && (after == null || distance > after.distance()
+                        || (distance == after.distance() && id > after.id())));
+
+        Map<Long, DocumentChunk> chunks = vectorRepo.findChunksByIds(
+                matches.stream().map(ExactVectorScanner.Match::id).toList());
+        List<DocumentChunk> results = new ArrayList<>(matches.size());
+        for (ExactVectorScanner.Match match : matches) {
+            DocumentChunk chunk = chunks.get(match.id());
+            if (chunk != null) {
+                chunk.setDistance((double) match.distance());
+                results.add(chunk);
+            }
+        }
+        return results;
+    }
+}
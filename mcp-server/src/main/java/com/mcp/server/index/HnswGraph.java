@@ -0,0 +1,407 @@
+package com.mcp.server.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Graphe HNSW (Hierarchical Navigable Small World) sur distance cosinus. Les vecteurs sont
+ * normalisés à l'insertion et conservés dans un {@link MappedVectorStore} ; le graphe
+ * (voisins par niveau et id de chunk de chaque nœud) reste sur le tas et se sauvegarde
+ * dans un fichier séparé pour redémarrer sans reconstruction.
+ *
+ * <p>Les chunks supprimés en base sont marqués comme supprimés (tombstones) : leurs nœuds
+ * servent encore de passage dans le graphe mais ne sont plus retournés, le parcours s'étend
+ * d'autant pour garder {@code ef} résultats vivants. Au-delà d'une certaine proportion, le
+ * graphe doit être reconstruit.
+ *
+ * <p>Un seul écrivain à la fois ; les recherches s'exécutent en parallèle entre deux insertions.
+ */
+public class HnswGraph {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int VERSION = 2;
+
+    private final MappedVectorStore vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] chunkIds = new long[1024];
+    // links[nœud][niveau] : voisins du nœud à ce niveau
+    private int[][][] links = new int[1024][][];
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long maxChunkId;
+
+    public record Neighbor(long chunkId, float distance) {
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    public HnswGraph(MappedVectorStore vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids des chunks indexés et non supprimés, triés
+    public long[] chunkIds() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[size - deleted.cardinality()];
+            int count = 0;
+            for (int node = deleted.nextClearBit(0); node < size; node = deleted.nextClearBit(node + 1)) {
+                ids[count++] = chunkIds[node];
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Plus grand id de chunk indexé, point de reprise de la synchronisation
+    public long maxChunkId() {
+        lock.readLock().lock();
+        try {
+            return maxChunkId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(long chunkId, float[] vector) {
+        float[] query = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            int node = size;
+            ensureCapacity(node + 1);
+            vectors.set(node, query);
+            chunkIds[node] = chunkId;
+            maxChunkId = Math.max(maxChunkId, chunkId);
+
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            links[node] = new int[level + 1][];
+            Arrays.fill(links[node], new int[0]);
+            size++;
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int entry = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                entry = searchLayer(query, entry, 1, l, false).get(0).node();
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(query, entry, efConstruction, l, false);
+                int[] selected = selectNeighbors(candidates, m);
+                links[node][l] = selected;
+                for (int neighbor : selected) {
+                    connect(neighbor, node, l);
+                }
+                entry = candidates.get(0).node();
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marque comme supprimés les nœuds de ces chunks ; retourne le nombre de nœuds marqués.
+     */
+    public int delete(Set<Long> removedChunkIds) {
+        if (removedChunkIds.isEmpty()) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            int marked = 0;
+            for (int node = deleted.nextClearBit(0); node < size; node = deleted.nextClearBit(node + 1)) {
+                if (removedChunkIds.contains(chunkIds[node])) {
+                    deleted.set(node);
+                    marked++;
+                }
+            }
+            return marked;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Les {@code k} plus proches voisins, par distance croissante. {@code ef} (au moins
+     * {@code k}) règle le compromis rappel/latence comme {@code hnsw.ef_search} dans pgvector.
+     */
+    public List<Neighbor> search(float[] vector, int k, int ef) {
+        float[] query = normalize(vector);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int entry = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                entry = searchLayer(query, entry, 1, l, false).get(0).node();
+            }
+            List<Candidate> candidates = searchLayer(query, entry, Math.max(ef, k), 0, true);
+            List<Neighbor> neighbors = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && i < k; i++) {
+                Candidate candidate = candidates.get(i);
+                neighbors.add(new Neighbor(chunkIds[candidate.node()], candidate.distance()));
+            }
+            return neighbors;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Avec skipDeleted, les nœuds supprimés sont parcourus mais ne comptent pas parmi les ef résultats
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level, boolean skipDeleted) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(NEAREST_FIRST.reversed());
+
+        Candidate start = new Candidate(entry, distance(query, entry));
+        candidates.add(start);
+        if (!skipDeleted || !deleted.get(entry)) {
+            results.add(start);
+        }
+        visited.set(entry);
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.distance() > results.peek().distance()) {
+                break;
+            }
+            for (int neighbor : links[current.node()][level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float distance = distance(query, neighbor);
+                if (results.size() < ef || distance < results.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, distance);
+                    candidates.add(candidate);
+                    if (!skipDeleted || !deleted.get(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(NEAREST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * Heuristique de sélection : un candidat n'est retenu que s'il est plus proche de la
+     * cible que de tous les voisins déjà retenus, ce qui garde des liens vers des régions
+     * différentes du graphe. Les places restantes sont complétées par les plus proches écartés.
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int maxNeighbors) {
+        List<Candidate> selected = new ArrayList<>(maxNeighbors);
+        List<Candidate> discarded = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxNeighbors) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (1 - vectors.dot(candidate.node(), kept.node()) < candidate.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : discarded).add(candidate);
+        }
+        for (int i = 0; i < discarded.size() && selected.size() < maxNeighbors; i++) {
+            selected.add(discarded.get(i));
+        }
+        return selected.stream().mapToInt(Candidate::node).toArray();
+    }
+
+    private void connect(int node, int neighbor, int level) {
+        int[] current = links[node][level];
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = neighbor;
+        int maxNeighbors = level == 0 ? maxM0 : m;
+        if (extended.length <= maxNeighbors) {
+            links[node][level] = extended;
+            return;
+        }
+        // Trop de liens : on ne garde que les meilleurs du point de vue de ce nœud
+        List<Candidate> candidates = new ArrayList<>(extended.length);
+        for (int link : extended) {
+            candidates.add(new Candidate(link, 1 - vectors.dot(node, link)));
+        }
+        candidates.sort(NEAREST_FIRST);
+        links[node][level] = selectNeighbors(candidates, maxNeighbors);
+    }
+
+    private float distance(float[] query, int node) {
+        return 1 - vectors.dot(node, query);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chunkIds.length) {
+            int newLength = Math.max(capacity, chunkIds.length * 2);
+            chunkIds = Arrays.copyOf(chunkIds, newLength);
+            links = Arrays.copyOf(links, newLength);
+        }
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float inverse = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    // --- Persistance ---
+
+    /**
+     * Sauvegarde le graphe (écriture dans un fichier temporaire puis renommage atomique).
+     * Les vecteurs sont d'abord écrits sur disque pour que le graphe ne référence jamais
+     * un vecteur absent du fichier mappé.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try {
+            vectors.force();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(vectors.dimensions());
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeInt(size);
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (int node = 0; node < size; node++) {
+                    out.writeLong(chunkIds[node]);
+                    out.writeInt(links[node].length);
+                    for (int[] levelLinks : links[node]) {
+                        out.writeInt(levelLinks.length);
+                        for (int link : levelLinks) {
+                            out.writeInt(link);
+                        }
+                    }
+                }
+                out.writeInt(deleted.cardinality());
+                for (int node = deleted.nextSetBit(0); node >= 0; node = deleted.nextSetBit(node + 1)) {
+                    out.writeInt(node);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HnswGraph load(Path file, MappedVectorStore vectors, int m, int efConstruction) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported HNSW graph file: " + file);
+            }
+            int dimensions = in.readInt();
+            int storedM = in.readInt();
+            int storedEfConstruction = in.readInt();
+            if (dimensions != vectors.dimensions() || storedM != m || storedEfConstruction != efConstruction) {
+                throw new IOException("HNSW graph parameters changed (dimensions=" + dimensions
+                        + ", m=" + storedM + ", ef_construction=" + storedEfConstruction + ")");
+            }
+
+            HnswGraph graph = new HnswGraph(vectors, m, efConstruction);
+            int size = in.readInt();
+            if (size > vectors.capacity()) {
+                throw new IOException("HNSW graph references " + size + " vectors, vector file holds " + vectors.capacity());
+            }
+            graph.ensureCapacity(size);
+            graph.entryPoint = in.readInt();
+            graph.maxLevel = in.readInt();
+            for (int node = 0; node < size; node++) {
+                graph.chunkIds[node] = in.readLong();
+                graph.maxChunkId = Math.max(graph.maxChunkId, graph.chunkIds[node]);
+                int[][] nodeLinks = new int[in.readInt()][];
+                for (int l = 0; l < nodeLinks.length; l++) {
+                    nodeLinks[l] = new int[in.readInt()];
+                    for (int i = 0; i < nodeLinks[l].length; i++) {
+                        nodeLinks[l][i] = in.readInt();
+                    }
+                }
+                graph.links[node] = nodeLinks;
+            }
+            int deletedCount = in.readInt();
+            for (int i = 0; i < deletedCount; i++) {
+                graph.deleted.set(in.readInt());
+            }
+            graph.size = size;
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mcp.server.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vecteurs de dimension fixe stockés hors tas dans un fichier mappé en mémoire. Le fichier
+ * est mappé par segments (un {@link MappedByteBuffer} est limité à 2 Go) ajoutés au fil
+ * des insertions ; c'est le cache de pages de l'OS qui décide de ce qui reste en RAM.
+ *
+ * <p>Les segments existants sont tous mappés à l'ouverture et seules les écritures en ajoutent :
+ * les lectures ne modifient jamais l'état. Pas de synchronisation interne : l'appelant
+ * sérialise les écritures par rapport aux lectures.
+ */
+public class MappedVectorStore implements Closeable {
+
+    private static final int VECTORS_PER_SEGMENT = 16_384;
+
+    private final FileChannel channel;
+    private final int dimensions;
+    private final long segmentBytes;
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+    private final List<FloatBuffer> segments = new ArrayList<>();
+
+    public MappedVectorStore(Path file, int dimensions) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.dimensions = dimensions;
+        this.segmentBytes = (long) VECTORS_PER_SEGMENT * dimensions * Float.BYTES;
+        long existing = (channel.size() + segmentBytes - 1) / segmentBytes;
+        for (int index = 0; index < existing; index++) {
+            map(index);
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    // Nombre de vecteurs que les segments mappés peuvent contenir
+    public long capacity() {
+        return (long) segments.size() * VECTORS_PER_SEGMENT;
+    }
+
+    public void set(int node, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        int index = node / VECTORS_PER_SEGMENT;
+        while (segments.size() <= index) {
+            map(segments.size());
+        }
+        segment(node).put(offset(node), vector);
+    }
+
+    public float[] get(int node) {
+        float[] vector = new float[dimensions];
+        segment(node).get(offset(node), vector);
+        return vector;
+    }
+
+    public float dot(int node, float[] query) {
+        FloatBuffer buffer = segment(node);
+        int offset = offset(node);
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += buffer.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    public float dot(int a, int b) {
+        FloatBuffer bufferA = segment(a);
+        FloatBuffer bufferB = segment(b);
+        int offsetA = offset(a);
+        int offsetB = offset(b);
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += bufferA.get(offsetA + i) * bufferB.get(offsetB + i);
+        }
+        return sum;
+    }
+
+    // Écrit les pages modifiées sur disque
+    public void force() {
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+    }
+
+    // Les régions ne sont démappées qu'une fois les buffers collectés : on n'en garde aucune référence
+    @Override
+    public void close() throws IOException {
+        mapped.clear();
+        segments.clear();
+        channel.close();
+    }
+
+    private int offset(int node) {
+        return (node % VECTORS_PER_SEGMENT) * dimensions;
+    }
+
+    private FloatBuffer segment(int node) {
+        return segments.get(node / VECTORS_PER_SEGMENT);
+    }
+
+    private void map(int index) {
+        try {
+            // Mapper au-delà de la fin agrandit le fichier
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, index * segmentBytes, segmentBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.add(buffer);
+            segments.add(buffer.asFloatBuffer());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map vector segment " + index + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mcp.server.index;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkVector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "spring.vector.backend", havingValue = "pgvector", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PgVectorSearchBackend implements VectorSearchBackend {
+
+    private final VectorRepository vectorRepo;
+    private final VectorIndexSettings indexSettings;
+    private final ExactVectorSearch exactSearch;
+
+    @Override
+    public List<DocumentChunk> search(float[] queryVector, int limit, SearchProfile profile,
+                                      SearchFilter filter, Double maxDistance, SearchCursor after) {
+        // Petit sous-ensemble filtré : parcours exact plutôt qu'un index ANN post-filtré
+        if (!filter.isEmpty()) {
+            Optional<List<DocumentChunk>> exact = exactSearch.searchSubset(queryVector, filter, limit, maxDistance, after);
+            if (exact.isPresent()) {
+                return exact.get();
+            }
+        }
+
+        if (indexSettings.isQuantized()) {
+            // Présélection sur l'index quantifié, puis distance exacte sur les vecteurs complets
+            int seen = after != null ? after.seen() : 0;
+            int depth = indexSettings.maxScanDepth();
+            if (seen >= depth) {
+                return List.of();
+            }
+            int candidates = (int) Math.min(((long) seen + limit) * indexSettings.getRerankFactor(), depth);
+            List<ChunkVector> vectors = vectorRepo.findApproximateCandidates(queryVector, candidates, profile, filter);
+            return exactSearch.rank(queryVector, vectors, limit, maxDistance, after);
+        }
+        return vectorRepo.semanticSearch(queryVector, limit, profile, filter, maxDistance, after);
+    }
+
+    @Override
+    public List<List<DocumentChunk>> searchBatch(List<float[]> queryVectors, int limit, SearchProfile profile,
+                                                 SearchFilter filter, Double maxDistance) {
+        // Le filtre reste dans la requête (parcours itératif) : un sous-ensemble exact par requête annulerait le regroupement
+        return vectorRepo.batchSemanticSearch(queryVectors, limit, profile, filter, maxDistance);
+    }
+}
@@ -0,0 +1,34 @@
+package com.mcp.server.index;
+
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+
+import java.util.List;
+
+/**
+ * Recherche des chunks les plus proches d'un vecteur de requête. L'implémentation est choisie
+ * par {@code spring.vector.backend} : {@code pgvector} (requête SQL sur la base vectorielle) ou
+ * {@code embedded} (graphe HNSW local, synchronisé depuis {@code document_chunks}).
+ */
+public interface VectorSearchBackend {
+
+    /**
+     * Chunks par distance cosinus croissante, restreints à {@code filter}, au plus
+     * {@code maxDistance} si renseignée, et situés après {@code after} si renseigné.
+     */
+    List<DocumentChunk> search(float[] queryVector, int limit, SearchProfile profile,
+                               SearchFilter filter, Double maxDistance, SearchCursor after);
+
+    /**
+     * Plusieurs recherches de première page, résultats dans l'ordre des vecteurs. Par défaut
+     * une recherche par vecteur ; le backend pgvector les regroupe en une seule requête.
+     */
+    default List<List<DocumentChunk>> searchBatch(List<float[]> queryVectors, int limit, SearchProfile profile,
+                                                  SearchFilter filter, Double maxDistance) {
+        return queryVectors.stream()
+                .map(queryVector -> search(queryVector, limit, profile, filter, maxDistance, null))
+                .toList();
+    }
+}
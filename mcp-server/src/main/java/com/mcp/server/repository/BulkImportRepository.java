@@ -0,0 +1,18 @@
+package com.mcp.server.repository;
+
+import com.mcp.server.entity.BulkImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkImportRepository extends JpaRepository<BulkImport, String> {
+    List<BulkImport> findByStatus(BulkImport.Status status);
+
+    @Query("SELECT b FROM BulkImport b LEFT JOIN FETCH b.failedKeys WHERE b.importId = :importId")
+    Optional<BulkImport> findWithFailedKeys(@Param("importId") String importId);
+}
@@ -2,8 +2,14 @@ package com.mcp.server.repository;
 
 import com.mcp.server.entity.DocumentMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +18,50 @@ public interface DocumentMetadataRepository extends JpaRepository<DocumentMetada
     List<DocumentMetadata> findByUploadedBy(String username);
     List<DocumentMetadata> findByTagsContaining(String tag);
     Optional<DocumentMetadata> findByDocumentId(String documentId);
+    List<DocumentMetadata> findByContentHash(String contentHash);
+
+    // Une seule requête pour N documents, tags compris (évite le N+1 de la recherche)
+    @Query("SELECT DISTINCT m FROM DocumentMetadata m LEFT JOIN FETCH m.tags WHERE m.documentId IN :documentIds")
+    List<DocumentMetadata> findWithTagsByDocumentIdIn(@Param("documentIds") Collection<String> documentIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentMetadata m SET m.indexingStatus = :status WHERE m.documentId = :documentId")
+    int updateIndexingStatus(@Param("documentId") String documentId,
+                             @Param("status") DocumentMetadata.IndexingStatus status);
+
+    // Changement de statut seulement depuis le statut attendu ; retourne 0 sinon
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentMetadata m SET m.indexingStatus = :status"
+            + " WHERE m.documentId = :documentId AND m.indexingStatus = :expected")
+    int updateIndexingStatus(@Param("documentId") String documentId,
+                             @Param("expected") DocumentMetadata.IndexingStatus expected,
+                             @Param("status") DocumentMetadata.IndexingStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentMetadata m SET m.indexingHeartbeat = :now"
+            + " WHERE m.documentId IN :documentIds AND m.indexingStatus = :status")
+    int renewIndexingHeartbeat(@Param("documentIds") Collection<String> documentIds,
+                               @Param("status") DocumentMetadata.IndexingStatus status,
+                               @Param("now") LocalDateTime now);
+
+    // Les documents antérieurs au bail (sans heartbeat) sont considérés comme expirés
+    @Query("SELECT m.documentId FROM DocumentMetadata m WHERE m.indexingStatus = :status"
+            + " AND (m.indexingHeartbeat IS NULL OR m.indexingHeartbeat < :cutoff)")
+    List<String> findExpiredIndexing(@Param("status") DocumentMetadata.IndexingStatus status,
+                                     @Param("cutoff") LocalDateTime cutoff);
+
+    // Conditionnel : une seule instance prend en charge un bail expiré, et pas s'il vient d'être renouvelé
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentMetadata m SET m.indexingStatus = :status WHERE m.documentId = :documentId"
+            + " AND m.indexingStatus = :expected"
+            + " AND (m.indexingHeartbeat IS NULL OR m.indexingHeartbeat < :cutoff)")
+    int expireIndexing(@Param("documentId") String documentId,
+                       @Param("expected") DocumentMetadata.IndexingStatus expected,
+                       @Param("status") DocumentMetadata.IndexingStatus status,
+                       @Param("cutoff") LocalDateTime cutoff);
 }
 
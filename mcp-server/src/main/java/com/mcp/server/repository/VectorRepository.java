@@ -1,40 +1,510 @@
 package com.mcp.server.repository;
 
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
 import com.mcp.server.entity.DocumentChunk;
 import com.pgvector.PGvector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Repository
 @RequiredArgsConstructor
 @Slf4j
 public class VectorRepository {
 
+    // En-tête du format binaire COPY de PostgreSQL
+    private static final byte[] COPY_SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int TEXT_OID = 25;
+
+    // Quasi-doublons liés (mode LINK) : pas d'embedding propre, on expose celui du chunk canonique
+    private static final String LINKED_CHUNKS = """
+        (
+            SELECT d.id, d.document_id, d.content, d.chunk_index, d.chunk_size,
+                   d.uploaded_by, d.file_type, d.tags, c.embedding
+            FROM document_chunks d
+            JOIN document_chunks c ON c.id = d.duplicate_of
+            WHERE d.embedding IS NULL
+        ) linked""";
+
+    // Chunks avec leur embedding ou celui de leur chunk canonique, pour les classements exacts
+    private static final String SEARCHABLE_CHUNKS = """
+        (
+            SELECT id, document_id, content, chunk_index, chunk_size, uploaded_by, file_type, tags, embedding
+            FROM document_chunks
+            WHERE embedding IS NOT NULL
+            UNION ALL
+            SELECT * FROM %s
+        ) searchable""".formatted(LINKED_CHUNKS);
+
     @Qualifier("vectorJdbcTemplate")
     private final JdbcTemplate jdbcTemplate;
+    private final VectorIndexSettings indexSettings;
+    @Qualifier("vectorTransactionTemplate")
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.vector.insert.mode:copy}")
+    private InsertMode insertMode;
+
+    // Constante k de la fusion RRF : score = somme des 1 / (k + rang)
+    @Value("${spring.vector.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    // Candidats retenus par chacune des deux recherches avant fusion
+    @Value("${spring.vector.hybrid.candidates:100}")
+    private int hybridCandidates;
+
+    // Documents retenus par la première étape de la recherche en deux étapes
+    @Value("${spring.vector.two-stage.documents:20}")
+    private int twoStageDocuments;
+
+    public enum InsertMode {
+        BATCH,  // JdbcTemplate.batchUpdate
+        COPY    // COPY ... FROM STDIN (FORMAT BINARY)
+    }
+
+    /**
+     * Recherche sémantique : plus proches voisins par distance croissante, départagés par id.
+     * {@code maxDistance} coupe côté serveur les résultats trop éloignés ; {@code after} reprend
+     * le parcours juste après un résultat déjà renvoyé (pagination par clé, sans OFFSET).
+     * Au-delà de {@link VectorIndexSettings#maxScanDepth()} résultats, la pagination s'arrête.
+     * Avec un filtre, les quasi-doublons liés du sous-ensemble sont aussi retournés.
+     */
+    public List<DocumentChunk> semanticSearch(float[] queryVector, int limit, SearchProfile profile,
+                                              SearchFilter filter, Double maxDistance, SearchCursor after) {
+        int seen = after != null ? after.seen() : 0;
+        int depth = indexSettings.maxScanDepth();
+        if (seen >= depth) {
+            return List.of();
+        }
+        int scanned = (int) Math.min((long) seen + limit, depth);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", new PGvector(queryVector))
+                .addValue("limit", scanned - seen);
+        StringBuilder where = new StringBuilder();
+        appendFilter(where, params, filter);
+        if (maxDistance != null) {
+            where.append("  AND embedding <=> :query <= :maxDistance\n");
+            params.addValue("maxDistance", maxDistance);
+        }
+        if (after != null) {
+            where.append("  AND (embedding <=> :query, id) > (:afterDistance, :afterId)\n");
+            params.addValue("afterDistance", after.distance())
+                    .addValue("afterId", after.id());
+        }
+        String columns = """
+            id, document_id, content, chunk_index, chunk_size,
+                   embedding <=> :query AS distance""";
+        // ORDER BY sur l'alias : la distance n'est calculée qu'une fois par ligne et l'index reste utilisable
+        String sql;
+        if (filter.isEmpty()) {
+            sql = """
+                SELECT %s
+                FROM document_chunks
+                WHERE embedding IS NOT NULL
+                %sORDER BY distance, id
+                LIMIT :limit""".formatted(columns, where);
+        } else {
+            // Un parcours itératif en ordre relâché peut rendre les voisins légèrement désordonnés
+            sql = """
+                SELECT * FROM (
+                %s
+                ) filtered ORDER BY distance, id
+                LIMIT :limit""".formatted(nearestWithLinked(columns, where.toString(), "distance, id", "distance, id", ":limit"));
+        }
+
+        // SET LOCAL n'a d'effet que dans une transaction
+        return transactionTemplate.execute(status -> {
+            applyTuning(profile, scanned);
+            if (!filter.isEmpty()) {
+                applyIterativeScan();
+            }
+            return new NamedParameterJdbcTemplate(jdbcTemplate)
+                    .query(sql, params, new DocumentChunkRowMapper());
+        });
+    }
+
+    /**
+     * Plus proches voisins sur l'index ANN, complétés des quasi-doublons liés du sous-ensemble
+     * filtré : sans embedding propre, ils échappent à l'index et sont classés exactement sur
+     * l'embedding de leur chunk canonique. Chaque branche est limitée, l'appelant trie l'union.
+     */
+    private static String nearestWithLinked(String columns, String where, String order, String linkedOrder,
+                                            String limit) {
+        return """
+            (SELECT %1$s
+            FROM document_chunks
+            WHERE embedding IS NOT NULL
+            %2$sORDER BY %3$s
+            LIMIT %5$s)
+            UNION ALL
+            (SELECT %1$s
+            FROM %6$s
+            WHERE embedding IS NOT NULL
+            %2$sORDER BY %4$s
+            LIMIT %5$s)""".formatted(columns, where, order, linkedOrder, limit, LINKED_CHUNKS);
+    }
+
+    /**
+     * Recherche hybride en une requête : les candidats de la recherche vectorielle (ANN) et
+     * de la recherche plein texte ({@code ts_rank_cd} sur {@code content_tsv}) sont fusionnés
+     * par Reciprocal Rank Fusion. {@code maxDistance} ne s'applique qu'aux candidats
+     * vectoriels, pour ne pas écarter une correspondance exacte sur un identifiant. La
+     * pagination avance par rang fusionné ({@code after.seen()}). Les quasi-doublons liés
+     * restent trouvables par leur texte, et par l'embedding de leur chunk canonique avec un filtre.
+     */
+    public List<DocumentChunk> hybridSearch(float[] queryVector, String queryText, int limit, SearchProfile profile,
+                                            SearchFilter filter, Double maxDistance, SearchCursor after) {
+        int seen = after != null ? after.seen() : 0;
+        int candidates = (int) Math.min(Math.max(hybridCandidates, (long) seen + limit), indexSettings.maxScanDepth());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", new PGvector(queryVector))
+                .addValue("text", queryText)
+                .addValue("tsConfig", indexSettings.getTextSearchConfig())
+                .addValue("candidates", candidates)
+                .addValue("rrfK", rrfK)
+                .addValue("limit", limit)
+                .addValue("offset", seen);
+
+        StringBuilder semanticWhere = new StringBuilder();
+        appendFilter(semanticWhere, params, filter);
+        String lexicalWhere = semanticWhere.toString();
+        if (maxDistance != null) {
+            semanticWhere.append("  AND embedding <=> :query <= :maxDistance\n");
+            params.addValue("maxDistance", maxDistance);
+        }
+        // Avec un index quantifié, la présélection suit la distance approchée
+        String semanticOrder = indexSettings.isQuantized() ? indexSettings.approximateDistanceSql("query") : "distance, id";
+        String nearest;
+        if (filter.isEmpty()) {
+            nearest = """
+                SELECT id, embedding <=> :query AS distance
+                FROM document_chunks
+                WHERE embedding IS NOT NULL
+                %sORDER BY %s
+                LIMIT :candidates""".formatted(semanticWhere, semanticOrder);
+        } else {
+            nearest = nearestWithLinked("id, embedding <=> :query AS distance", semanticWhere.toString(),
+                    semanticOrder, "distance, id", ":candidates");
+        }
+
+        // Un quasi-doublon lié a son propre texte : pas de condition sur embedding côté lexical
+        String sql = """
+            WITH semantic AS (
+                SELECT id, row_number() OVER (ORDER BY distance, id) AS rank
+                FROM (
+                %s
+                ) nearest
+                ORDER BY distance, id
+                LIMIT :candidates
+            ),
+            lexical AS (
+                SELECT id, row_number() OVER (ORDER BY ts_rank_cd(content_tsv, q) DESC, id) AS rank
+                FROM document_chunks, websearch_to_tsquery(CAST(:tsConfig AS regconfig), :text) q
+                WHERE content_tsv @@ q
+                %s
+                ORDER BY ts_rank_cd(content_tsv, q) DESC, id
+                LIMIT :candidates
+            )
+            SELECT c.id, c.document_id, c.content, c.chunk_index, c.chunk_size,
+                   COALESCE(c.embedding, canonical.embedding) <=> :query AS distance
+            FROM semantic s
+            FULL OUTER JOIN lexical l ON l.id = s.id
+            JOIN document_chunks c ON c.id = COALESCE(s.id, l.id)
+            LEFT JOIN document_chunks canonical ON canonical.id = c.duplicate_of
+            ORDER BY COALESCE(1.0 / (:rrfK + s.rank), 0) + COALESCE(1.0 / (:rrfK + l.rank), 0) DESC, c.id
+            LIMIT :limit OFFSET :offset
+            """.formatted(nearest, lexicalWhere);
+
+        return transactionTemplate.execute(status -> {
+            applyTuning(profile, candidates);
+            if (!filter.isEmpty()) {
+                applyIterativeScan();
+            }
+            return new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, params, new DocumentChunkRowMapper());
+        });
+    }
 
-    // Recherche sémantique
-    public List<DocumentChunk> semanticSearch(float[] queryVector, int limit) {
+    /**
+     * Recherche en deux étapes : les {@code two-stage.documents} documents dont le centroïde
+     * est le plus proche sont sélectionnés sur l'index de {@code document_embeddings}, puis
+     * seuls leurs chunks sont classés, exactement. Le coût suit le nombre de documents
+     * pertinents et non la taille du corpus. Même pagination que {@link #semanticSearch}.
+     */
+    public List<DocumentChunk> twoStageSearch(float[] queryVector, int limit, SearchProfile profile,
+                                              SearchFilter filter, Double maxDistance, SearchCursor after) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", new PGvector(queryVector))
+                .addValue("documents", twoStageDocuments)
+                .addValue("limit", limit);
+        // Les métadonnées filtrables sont aussi recopiées sur document_embeddings
+        StringBuilder where = new StringBuilder();
+        appendFilter(where, params, filter);
+        StringBuilder chunkWhere = new StringBuilder(where);
+        if (maxDistance != null) {
+            chunkWhere.append("  AND embedding <=> :query <= :maxDistance\n");
+            params.addValue("maxDistance", maxDistance);
+        }
+        if (after != null) {
+            chunkWhere.append("  AND (embedding <=> :query, id) > (:afterDistance, :afterId)\n");
+            params.addValue("afterDistance", after.distance())
+                    .addValue("afterId", after.id());
+        }
+
+        // Tri exact sur les chunks des documents retenus (index document_id), moins coûteux que
+        // l'index ANN et sans perte de rappel ; les quasi-doublons liés y sont classés sur
+        // l'embedding de leur chunk canonique
         String sql = """
+            WITH candidates AS MATERIALIZED (
+                SELECT document_id AS candidate_id
+                FROM document_embeddings
+                WHERE embedding IS NOT NULL
+                %s
+                ORDER BY embedding <=> :query
+                LIMIT :documents
+            )
             SELECT id, document_id, content, chunk_index, chunk_size,
-                   (embedding <=> ?) as distance
+                   embedding <=> :query AS distance
+            FROM %s
+            JOIN candidates ON candidate_id = document_id
+            WHERE embedding IS NOT NULL
+            %s
+            ORDER BY distance, id
+            LIMIT :limit
+            """.formatted(where, SEARCHABLE_CHUNKS, chunkWhere);
+
+        return transactionTemplate.execute(status -> {
+            applyTuning(profile, twoStageDocuments);
+            if (!filter.isEmpty()) {
+                applyIterativeScan();
+            }
+            return new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, params, new DocumentChunkRowMapper());
+        });
+    }
+
+    /**
+     * Plusieurs recherches sémantiques en un aller-retour : les vecteurs de requête sont
+     * dépliés par {@code unnest} et chacun alimente une sous-requête {@code LATERAL} qui
+     * parcourt l'index comme {@link #semanticSearch}. Avec un index quantifié, la sous-requête
+     * présélectionne {@code limit * rerankFactor} candidats sur la distance approchée et le
+     * reclassement se fait sur la distance exacte. Résultats dans l'ordre des requêtes.
+     */
+    public List<List<DocumentChunk>> batchSemanticSearch(List<float[]> queryVectors, int limit, SearchProfile profile,
+                                                         SearchFilter filter, Double maxDistance) {
+        long wanted = indexSettings.isQuantized() ? (long) limit * indexSettings.getRerankFactor() : limit;
+        int candidates = (int) Math.min(wanted, indexSettings.maxScanDepth());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queries", toVectorArray(queryVectors))
+                .addValue("candidates", candidates);
+        StringBuilder where = new StringBuilder();
+        appendFilter(where, params, filter);
+        if (maxDistance != null) {
+            where.append("  AND embedding <=> q.vector <= :maxDistance\n");
+            params.addValue("maxDistance", maxDistance);
+        }
+        String order = indexSettings.isQuantized() ? indexSettings.approximateDistanceExpression("q.vector") : "distance, id";
+        String columns = """
+            id, document_id, content, chunk_index, chunk_size,
+                   embedding <=> q.vector AS distance""";
+        String nearest;
+        if (filter.isEmpty()) {
+            nearest = """
+                SELECT %s
+                FROM document_chunks
+                WHERE embedding IS NOT NULL
+                %sORDER BY %s
+                LIMIT :candidates""".formatted(columns, where, order);
+        } else {
+            nearest = nearestWithLinked(columns, where.toString(), order, "distance, id", ":candidates");
+        }
+
+        String sql = """
+            SELECT q.ord, c.id, c.document_id, c.content, c.chunk_index, c.chunk_size, c.distance
+            FROM unnest(CAST(:queries AS vector[])) WITH ORDINALITY AS q(vector, ord)
+            CROSS JOIN LATERAL (
+            %s
+            ) c
+            ORDER BY q.ord, c.distance, c.id
+            """.formatted(nearest);
+
+        List<List<DocumentChunk>> results = new ArrayList<>(queryVectors.size());
+        for (int i = 0; i < queryVectors.size(); i++) {
+            results.add(new ArrayList<>(limit));
+        }
+        DocumentChunkRowMapper rowMapper = new DocumentChunkRowMapper();
+        transactionTemplate.executeWithoutResult(status -> {
+            applyTuning(profile, candidates);
+            if (!filter.isEmpty()) {
+                applyIterativeScan();
+            }
+            new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, params, rs -> {
+                List<DocumentChunk> chunks = results.get(rs.getInt("ord") - 1);
+                // Lignes triées par distance exacte : on garde les limit premières de chaque requête
+                if (chunks.size() < limit) {
+                    chunks.add(rowMapper.mapRow(rs, chunks.size()));
+                }
+            });
+        });
+        return results;
+    }
+
+    // Littéral tableau de vecteurs, converti par CAST(... AS vector[]) : un seul paramètre quel que soit le nombre de requêtes
+    private static String toVectorArray(List<float[]> vectors) {
+        StringBuilder array = new StringBuilder("{");
+        for (float[] vector : vectors) {
+            if (array.length() > 1) {
+                array.append(',');
+            }
+            array.append('"').append(new PGvector(vector)).append('"');
+        }
+        return array.append('}').toString();
+    }
+
+    /**
+     * Candidats présélectionnés sur l'index quantifié (distance approchée), avec leur vecteur
+     * complet pour le reclassement exact.
+     */
+    public List<ChunkVector> findApproximateCandidates(float[] queryVector, int candidates, SearchProfile profile,
+                                                       SearchFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", new PGvector(queryVector))
+                .addValue("candidates", candidates);
+        StringBuilder where = new StringBuilder();
+        appendFilter(where, params, filter);
+        String order = indexSettings.approximateDistanceSql("query");
+        String sql;
+        if (filter.isEmpty()) {
+            sql = """
+                SELECT id, embedding::text AS embedding
+                FROM document_chunks
+                WHERE embedding IS NOT NULL
+                %sORDER BY %s
+                LIMIT :candidates""".formatted(where, order);
+        } else {
+            sql = nearestWithLinked("id, embedding::text AS embedding", where.toString(), order,
+                    "embedding <=> :query", ":candidates");
+        }
+
+        return transactionTemplate.execute(status -> {
+            applyTuning(profile, candidates);
+            if (!filter.isEmpty()) {
+                applyIterativeScan();
+            }
+            return new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, params,
+                    (rs, rowNum) -> new ChunkVector(rs.getLong("id"), toVector(rs.getString("embedding"))));
+        });
+    }
+
+    // Taille du sous-ensemble filtré, comptée jusqu'à limit sans lire les vecteurs
+    public int countEmbeddings(SearchFilter filter, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        StringBuilder sql = new StringBuilder("""
+            SELECT count(*) FROM (
+            SELECT id
             FROM document_chunks
-            ORDER BY embedding <=> ?
-            LIMIT ?
-            """;
+            WHERE (embedding IS NOT NULL OR duplicate_of IS NOT NULL)
+            """);
+        appendFilter(sql, params, filter);
+        sql.append("LIMIT :limit\n) subset");
+        Integer count = new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject(sql.toString(), params, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    // Vecteurs du sous-ensemble filtré (quasi-doublons liés compris), pour un parcours exact en mémoire
+    public List<ChunkVector> findEmbeddings(SearchFilter filter, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, embedding::text AS embedding
+            FROM %s
+            WHERE embedding IS NOT NULL
+            """.formatted(SEARCHABLE_CHUNKS));
+        appendFilter(sql, params, filter);
+        sql.append("LIMIT :limit");
+        return new NamedParameterJdbcTemplate(jdbcTemplate).query(sql.toString(), params,
+                (rs, rowNum) -> new ChunkVector(rs.getLong("id"), toVector(rs.getString("embedding"))));
+    }
 
-        return jdbcTemplate.query(sql, new DocumentChunkRowMapper(),
-                new PGvector(queryVector),
-                new PGvector(queryVector),
-                limit);
+    private static void appendFilter(StringBuilder sql, MapSqlParameterSource params, SearchFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        if (!filter.documentIds().isEmpty()) {
+            sql.append("  AND document_id IN (:documentIds)\n");
+            params.addValue("documentIds", filter.documentIds());
+        }
+        if (filter.uploadedBy() != null) {
+            sql.append("  AND uploaded_by = :uploadedBy\n");
+            params.addValue("uploadedBy", filter.uploadedBy());
+        }
+        if (filter.fileType() != null) {
+            sql.append("  AND file_type = :fileType\n");
+            params.addValue("fileType", filter.fileType());
+        }
+        if (!filter.tags().isEmpty()) {
+            // Au moins un des tags (opérateur de recouvrement, servi par l'index GIN)
+            sql.append("  AND tags && ARRAY[:tags]::text[]\n");
+            params.addValue("tags", filter.tags());
+        }
+    }
+
+    /**
+     * Avec un filtre sélectif, un parcours ANN classique s'arrête après ef_search/probes
+     * candidats et peut ne renvoyer presque rien : le parcours itératif (pgvector 0.8)
+     * continue jusqu'à obtenir assez de lignes satisfaisant le filtre.
+     */
+    private void applyIterativeScan() {
+        VectorIndexSettings.IterativeScan iterativeScan = indexSettings.iterativeScan();
+        if (iterativeScan != null) {
+            jdbcTemplate.queryForObject("SELECT set_config(?, ?, true)", String.class,
+                    iterativeScan.setting(), iterativeScan.mode());
+        }
+    }
+
+    private void applyTuning(SearchProfile profile, int limit) {
+        VectorIndexSettings.SearchTuning tuning = indexSettings.tuning(profile);
+        if (tuning == null) {
+            return;
+        }
+        // ef_search borne le nombre de résultats qu'un parcours HNSW peut renvoyer, dans la limite acceptée par pgvector
+        int value = tuning.setting().startsWith("hnsw")
+                ? Math.min(Math.max(tuning.value(), limit), VectorIndexSettings.MAX_EF_SEARCH)
+                : tuning.value();
+        jdbcTemplate.queryForObject("SELECT set_config(?, ?, true)", String.class,
+                tuning.setting(), String.valueOf(value));
     }
 
     // Insertion
@@ -53,6 +523,603 @@ public class VectorRepository {
         );
     }
 
+    // Insertion en masse : une seule transaction pour tous les chunks d'un document
+    public void insertChunks(List<DocumentChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        if (chunks.stream().anyMatch(chunk -> chunk.getId() == null)) {
+            long[] ids = reserveChunkIds(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                if (chunks.get(i).getId() == null) {
+                    chunks.get(i).setId(ids[i]);
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (insertMode == InsertMode.COPY) {
+                copyChunks(chunks);
+            } else {
+                batchInsertChunks(chunks);
+            }
+        });
+        log.debug("{} chunks insérés (mode {})", chunks.size(), insertMode);
+    }
+
+    private void batchInsertChunks(List<DocumentChunk> chunks) {
+        String sql = """
+            INSERT INTO document_chunks (id, document_id, content, embedding, chunk_index, chunk_size, content_hash,
+                                         uploaded_by, file_type, tags, simhash, duplicate_of)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+        jdbcTemplate.batchUpdate(sql, chunks, chunks.size(), (ps, chunk) -> {
+            ps.setLong(1, chunk.getId());
+            ps.setString(2, chunk.getDocumentId());
+            ps.setString(3, chunk.getContent());
+            ps.setObject(4, chunk.getEmbedding() != null ? new PGvector(chunk.getEmbedding()) : null);
+            ps.setInt(5, chunk.getChunkIndex());
+            ps.setInt(6, chunk.getChunkSize());
+            ps.setString(7, chunk.getContentHash());
+            ps.setString(8, chunk.getUploadedBy());
+            ps.setString(9, chunk.getFileType());
+            ps.setArray(10, chunk.getTags() != null
+                    ? ps.getConnection().createArrayOf("text", chunk.getTags().toArray())
+                    : null);
+            ps.setObject(11, chunk.getSimhash(), Types.BIGINT);
+            ps.setObject(12, chunk.getDuplicateOf(), Types.BIGINT);
+        });
+    }
+
+    private void copyChunks(List<DocumentChunk> chunks) {
+        String sql = """
+            COPY document_chunks (id, document_id, content, embedding, chunk_index, chunk_size, content_hash,
+                                  uploaded_by, file_type, tags, simhash, duplicate_of)
+            FROM STDIN (FORMAT BINARY)
+            """;
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            PGConnection pgConnection = con.unwrap(PGConnection.class);
+            try (DataOutputStream out = new DataOutputStream(new PGCopyOutputStream(pgConnection, sql, 1 << 16))) {
+                out.write(COPY_SIGNATURE);
+                out.writeInt(0); // flags
+                out.writeInt(0); // longueur de l'extension d'en-tête
+                for (DocumentChunk chunk : chunks) {
+                    out.writeShort(12);
+                    writeLong(out, chunk.getId());
+                    writeText(out, chunk.getDocumentId());
+                    writeText(out, chunk.getContent());
+                    writeVector(out, chunk.getEmbedding());
+                    writeInt(out, chunk.getChunkIndex());
+                    writeInt(out, chunk.getChunkSize());
+                    writeText(out, chunk.getContentHash());
+                    writeText(out, chunk.getUploadedBy());
+                    writeText(out, chunk.getFileType());
+                    writeTextArray(out, chunk.getTags());
+                    writeLong(out, chunk.getSimhash());
+                    writeLong(out, chunk.getDuplicateOf());
+                }
+                out.writeShort(-1); // fin des tuples
+            } catch (IOException e) {
+                throw new UncheckedIOException("COPY into document_chunks failed", e);
+            }
+            return null;
+        });
+    }
+
+    // Ids tirés de la séquence avant insertion, pour que les chunks d'un même lot puissent se référencer
+    public long[] reserveChunkIds(int count) {
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('document_chunks', 'id')) FROM generate_series(1, ?)",
+                Long.class, count).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public record ChunkSignature(long id, long simhash) {
+    }
+
+    // Empreintes SimHash des chunks canoniques insérés après lastId, dans l'ordre des ids
+    public List<ChunkSignature> findChunkSignaturesAfter(long lastId, int limit) {
+        String sql = """
+            SELECT id, simhash
+            FROM document_chunks
+            WHERE id > ? AND simhash IS NOT NULL AND duplicate_of IS NULL
+            ORDER BY id
+            LIMIT ?
+            """;
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new ChunkSignature(rs.getLong("id"), rs.getLong("simhash")),
+                lastId, limit);
+    }
+
+    // Embeddings déjà calculés pour ces empreintes de contenu
+    public Map<String, float[]> findEmbeddingsByHashes(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return Map.of();
+        }
+        String sql = """
+            SELECT DISTINCT ON (content_hash) content_hash, embedding::text AS embedding
+            FROM document_chunks
+            WHERE content_hash = ANY(?) AND embedding IS NOT NULL
+            """;
+
+        Map<String, float[]> embeddings = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", hashes.toArray())),
+                rs -> {
+                    embeddings.put(rs.getString("content_hash"), toVector(rs.getString("embedding")));
+                });
+        return embeddings;
+    }
+
+    static float[] toVector(String value) throws SQLException {
+        PGvector vector = new PGvector();
+        vector.setValue(value);
+        return vector.toArray();
+    }
+
+    // --- Métadonnées dénormalisées ---
+
+    // Documents dont les chunks n'ont pas encore reçu leurs métadonnées (insérés avant leur ajout)
+    public List<String> findDocumentIdsWithoutAttributes(String afterDocumentId, int limit) {
+        String sql = """
+            SELECT DISTINCT document_id
+            FROM document_chunks
+            WHERE uploaded_by IS NULL AND document_id > ?
+            ORDER BY document_id
+            LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, String.class, afterDocumentId, limit);
+    }
+
+    public int updateChunkAttributes(DocumentMetadataView document) {
+        String sql = """
+            UPDATE %s
+            SET uploaded_by = ?, file_type = ?, tags = ?
+            WHERE document_id = ?
+            """;
+        updateAttributes(sql.formatted("document_embeddings"), document);
+        return updateAttributes(sql.formatted("document_chunks"), document);
+    }
+
+    private int updateAttributes(String sql, DocumentMetadataView document) {
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setString(1, document.uploadedBy());
+            ps.setString(2, document.fileType());
+            ps.setArray(3, ps.getConnection().createArrayOf("text", document.tags().toArray()));
+            ps.setString(4, document.documentId());
+        });
+    }
+
+    // --- Suppression et réindexation ---
+
+    public record ChunkHash(long id, int chunkIndex, String contentHash) {
+    }
+
+    /**
+     * Chunks supprimés (canoniques, avec empreinte SimHash) et quasi-doublons promus chunks
+     * canoniques à leur place, pour la mise à jour de l'index des quasi-doublons.
+     */
+    public record ChunkRemoval(List<ChunkSignature> removed, List<ChunkSignature> promoted) {
+    }
+
+    public List<Long> findChunkIds(String documentId) {
+        return jdbcTemplate.queryForList("SELECT id FROM document_chunks WHERE document_id = ?",
+                Long.class, documentId);
+    }
+
+    public List<ChunkHash> findChunkHashes(String documentId) {
+        String sql = """
+            SELECT id, chunk_index, content_hash
+            FROM document_chunks
+            WHERE document_id = ?
+            ORDER BY chunk_index, id
+            """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ChunkHash(
+                rs.getLong("id"), rs.getInt("chunk_index"), rs.getString("content_hash")), documentId);
+    }
+
+    public void updateChunkIndexes(long[] ids, int[] chunkIndexes) {
+        if (ids.length == 0) {
+            return;
+        }
+        String sql = """
+            UPDATE document_chunks t
+            SET chunk_index = u.chunk_index
+            FROM unnest(?::bigint[], ?::int[]) AS u(id, chunk_index)
+            WHERE t.id = u.id
+            """;
+        jdbcTemplate.update(sql, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint",
+                    Arrays.stream(ids).boxed().toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("integer",
+                    Arrays.stream(chunkIndexes).boxed().toArray()));
+        });
+    }
+
+    /**
+     * Supprime des chunks en deux requêtes ensemblistes. Un chunk canonique supprimé peut
+     * avoir des quasi-doublons hors de l'ensemble supprimé (duplicate_of) : le premier
+     * d'entre eux reprend son embedding, sous un nouvel id pour que l'index embarqué le
+     * synchronise, et les autres sont liés à lui. Les lignes sont verrouillées d'abord : une
+     * insertion concurrente de quasi-doublons (voir {@link #lockChunks}) se termine avant la
+     * promotion, ou attend la suppression et constate que le chunk canonique a disparu.
+     */
+    public ChunkRemoval removeChunks(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ChunkRemoval(List.of(), List.of());
+        }
+        String promoteSql = """
+            WITH promoted AS (
+                SELECT DISTINCT ON (d.duplicate_of) d.id, d.duplicate_of AS replaced, r.embedding
+                FROM document_chunks d
+                JOIN document_chunks r ON r.id = d.duplicate_of
+                WHERE r.id = ANY(?) AND d.id <> ALL(?)
+                ORDER BY d.duplicate_of, d.id
+            ),
+            moved AS (
+                UPDATE document_chunks t
+                SET id = nextval(pg_get_serial_sequence('document_chunks', 'id')),
+                    embedding = p.embedding,
+                    duplicate_of = NULL
+                FROM promoted p
+                WHERE t.id = p.id
+                RETURNING t.id, t.simhash, p.id AS previous_id, p.replaced
+            ),
+            relinked AS (
+                UPDATE document_chunks t
+                SET duplicate_of = m.id
+                FROM moved m
+                WHERE t.duplicate_of = m.replaced AND t.id <> m.previous_id AND t.id <> ALL(?)
+            )
+            SELECT id, simhash FROM moved
+            """;
+        String lockSql = "SELECT id FROM document_chunks WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+        String deleteSql = "DELETE FROM document_chunks WHERE id = ANY(?) RETURNING id, simhash, duplicate_of";
+
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.query(lockSql,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                    rs -> { });
+            List<ChunkSignature> promoted = new ArrayList<>();
+            jdbcTemplate.query(promoteSql, ps -> {
+                Array array = ps.getConnection().createArrayOf("bigint", ids.toArray());
+                ps.setArray(1, array);
+                ps.setArray(2, array);
+                ps.setArray(3, array);
+            }, rs -> {
+                long simhash = rs.getLong("simhash");
+                if (!rs.wasNull()) {
+                    promoted.add(new ChunkSignature(rs.getLong("id"), simhash));
+                }
+            });
+            List<ChunkSignature> removed = new ArrayList<>();
+            jdbcTemplate.query(deleteSql,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                    rs -> {
+                        long simhash = rs.getLong("simhash");
+                        if (!rs.wasNull() && rs.getObject("duplicate_of") == null) {
+                            removed.add(new ChunkSignature(rs.getLong("id"), simhash));
+                        }
+                    });
+            log.debug("{} chunks supprimés, {} quasi-doublons promus", ids.size(), promoted.size());
+            return new ChunkRemoval(removed, promoted);
+        });
+    }
+
+    /**
+     * Verrouille en partage les chunks canoniques existants parmi {@code ids} et retourne
+     * leurs ids. Appelé dans la transaction qui insère leurs quasi-doublons : un chunk
+     * canonique ne peut plus être supprimé avant la validation, et un chunk absent de
+     * l'index en mémoire d'une autre instance n'est pas référencé.
+     */
+    public Set<Long> lockChunks(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT id FROM document_chunks WHERE id = ANY(?) AND embedding IS NOT NULL ORDER BY id FOR SHARE";
+        Set<Long> locked = new HashSet<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                rs -> { locked.add(rs.getLong("id")); });
+        return locked;
+    }
+
+    public void deleteDocumentEmbedding(String documentId) {
+        jdbcTemplate.update("DELETE FROM document_embeddings WHERE document_id = ?", documentId);
+    }
+
+    // Plusieurs écritures atomiques (les méthodes transactionnelles appelées rejoignent la transaction)
+    public <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    // --- Embeddings de niveau document ---
+
+    /**
+     * (Re)calcule le centroïde des chunks du document. La moyenne suffit : la distance
+     * cosinus ne dépend pas de la norme, inutile de renormaliser.
+     */
+    public void refreshDocumentEmbedding(String documentId) {
+        String sql = """
+            INSERT INTO document_embeddings (document_id, embedding, chunk_count, uploaded_by, file_type, tags, updated_at)
+            SELECT document_id, avg(embedding), count(*), max(uploaded_by), max(file_type), (array_agg(tags))[1], now()
+            FROM document_chunks
+            WHERE document_id = ? AND embedding IS NOT NULL
+            GROUP BY document_id
+            ON CONFLICT (document_id) DO UPDATE SET
+                embedding = EXCLUDED.embedding,
+                chunk_count = EXCLUDED.chunk_count,
+                uploaded_by = EXCLUDED.uploaded_by,
+                file_type = EXCLUDED.file_type,
+                tags = EXCLUDED.tags,
+                updated_at = EXCLUDED.updated_at
+            """;
+        jdbcTemplate.update(sql, documentId);
+    }
+
+    // Documents indexés avant l'ajout de document_embeddings
+    public List<String> findDocumentIdsWithoutEmbedding(int limit) {
+        String sql = """
+            SELECT DISTINCT c.document_id
+            FROM document_chunks c
+            WHERE c.embedding IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM document_embeddings d WHERE d.document_id = c.document_id)
+            LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, String.class, limit);
+    }
+
+    // --- Lecture pour l'index embarqué ---
+
+    public record ChunkVector(long id, float[] embedding) {
+    }
+
+    // Vecteurs des chunks insérés après lastId, dans l'ordre des ids
+    public List<ChunkVector> findEmbeddingsAfter(long lastId, int limit) {
+        String sql = """
+            SELECT id, embedding::text AS embedding
+            FROM document_chunks
+            WHERE id > ? AND embedding IS NOT NULL
+            ORDER BY id
+            LIMIT ?
+            """;
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new ChunkVector(rs.getLong("id"), toVector(rs.getString("embedding"))),
+                lastId, limit);
+    }
+
+    /**
+     * Calcule {@code content_tsv} pour un lot de chunks antérieurs à la colonne, par ids
+     * croissants ; retourne les ids traités.
+     */
+    public List<Long> backfillContentTsv(long afterId, int limit) {
+        String sql = """
+            WITH batch AS (
+                SELECT id
+                FROM document_chunks
+                WHERE id > ? AND content_tsv IS NULL
+                ORDER BY id
+                LIMIT ?
+            )
+            UPDATE document_chunks t
+            SET content_tsv = to_tsvector(CAST(? AS regconfig), t.content)
+            FROM batch
+            WHERE t.id = batch.id
+            RETURNING t.id
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, afterId, limit, indexSettings.getTextSearchConfig());
+    }
+
+    /**
+     * Crée l'index GIN de {@code content_tsv} sans bloquer les écritures ; retourne
+     * {@code false} s'il existe déjà. Un index invalide laissé par une création interrompue
+     * est supprimé et recréé.
+     */
+    public boolean ensureContentTsvIndex() {
+        String indexName = VectorIndexSettings.CONTENT_TSV_INDEX_NAME;
+        List<Boolean> valid = jdbcTemplate.queryForList("""
+            SELECT i.indisvalid
+            FROM pg_index i
+            JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE c.relname = ?
+            """, Boolean.class, indexName);
+        if (!valid.isEmpty() && valid.get(0)) {
+            return false;
+        }
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY " + indexName + " ON document_chunks USING GIN (content_tsv)");
+        return true;
+    }
+
+    // Ids seuls, pour rapprocher l'index embarqué de la table sans transférer les vecteurs
+    public List<Long> findEmbeddedChunkIdsAfter(long lastId, int limit) {
+        String sql = """
+            SELECT id
+            FROM document_chunks
+            WHERE id > ? AND embedding IS NOT NULL
+            ORDER BY id
+            LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, lastId, limit);
+    }
+
+    // Vecteurs des chunks demandés (ceux sans embedding propre sont ignorés), dans l'ordre des ids
+    public List<ChunkVector> findEmbeddingsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            SELECT id, embedding::text AS embedding
+            FROM document_chunks
+            WHERE id = ANY(?) AND embedding IS NOT NULL
+            ORDER BY id
+            """;
+        return jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                (rs, rowNum) -> new ChunkVector(rs.getLong("id"), toVector(rs.getString("embedding"))));
+    }
+
+    public Map<Long, DocumentChunk> findChunksByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        String sql = """
+            SELECT id, document_id, content, chunk_index, chunk_size, NULL::float8 AS distance
+            FROM document_chunks
+            WHERE id = ANY(?)
+            """;
+        Map<Long, DocumentChunk> chunks = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                rs -> {
+                    DocumentChunk chunk = new DocumentChunkRowMapper().mapRow(rs, 0);
+                    chunks.put(chunk.getId(), chunk);
+                });
+        return chunks;
+    }
+
+    // --- Maintenance de l'index ---
+
+    public record ChunkTableStats(long liveRows, long deadRows, long modifiedSinceAnalyze) {
+    }
+
+    // Compteurs estimés par PostgreSQL, sans parcourir la table
+    public ChunkTableStats tableStats() {
+        String sql = """
+            SELECT n_live_tup, n_dead_tup, n_mod_since_analyze
+            FROM pg_stat_user_tables
+            WHERE relname = 'document_chunks'
+            """;
+        List<ChunkTableStats> stats = jdbcTemplate.query(sql, (rs, rowNum) -> new ChunkTableStats(
+                rs.getLong("n_live_tup"), rs.getLong("n_dead_tup"), rs.getLong("n_mod_since_analyze")));
+        return stats.isEmpty() ? new ChunkTableStats(0, 0, 0) : stats.get(0);
+    }
+
+    public Optional<String> findIndexDefinition(String indexName) {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE indexname = ?", String.class, indexName);
+        return definitions.stream().findFirst();
+    }
+
+    public void analyze() {
+        jdbcTemplate.execute("ANALYZE document_chunks");
+    }
+
+    // Récupère l'espace des tuples morts dans la table et ses index (hors transaction)
+    public void vacuumAnalyze() {
+        jdbcTemplate.execute("VACUUM (ANALYZE) document_chunks");
+    }
+
+    /**
+     * Exécute {@code work} sous un verrou consultatif de session, pris sans attente : retourne
+     * {@code false} sans rien exécuter si une autre session (autre instance) le détient. La
+     * connexion qui porte le verrou reste réservée jusqu'à sa libération.
+     */
+    public boolean withAdvisoryLock(long key, Runnable work) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, key);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                work.run();
+                return true;
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, key);
+                    unlock.execute();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Reconstruit l'index sous un nom temporaire puis remplace l'ancien, sans bloquer
+     * les lectures ni les écritures. Les instructions CONCURRENTLY s'exécutent hors transaction ;
+     * les deux renommages se font dans une même transaction, pour qu'un index porte toujours
+     * le nom attendu, et l'ancien n'est supprimé qu'ensuite.
+     */
+    public void replaceIndexConcurrently(String indexName, String createConcurrentlySql, String tempName) {
+        String retiredName = indexName + "_old";
+        // Restes éventuels (invalides ou non supprimés) d'une reconstruction interrompue
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + tempName);
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + retiredName);
+        jdbcTemplate.execute(createConcurrentlySql);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + indexName + " RENAME TO " + retiredName);
+            jdbcTemplate.execute("ALTER INDEX " + tempName + " RENAME TO " + indexName);
+        });
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + retiredName);
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    // Format binaire d'un text[] : dimensions, drapeau NULL, OID des éléments, bornes, puis éléments
+    private static void writeTextArray(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream array = new DataOutputStream(buffer);
+        array.writeInt(values.isEmpty() ? 0 : 1);
+        array.writeInt(0);
+        array.writeInt(TEXT_OID);
+        if (!values.isEmpty()) {
+            array.writeInt(values.size());
+            array.writeInt(1);
+            for (String value : values) {
+                writeText(array, value);
+            }
+        }
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+
+    // Format binaire pgvector : int16 dimension, int16 réservé, puis float4 * dimension
+    private static void writeVector(DataOutputStream out, float[] vector) throws IOException {
+        if (vector == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4 + 4 * vector.length);
+        out.writeShort(vector.length);
+        out.writeShort(0);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
     private static class DocumentChunkRowMapper implements RowMapper<DocumentChunk> {
         @Override
         public DocumentChunk mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -62,15 +1129,8 @@ public class VectorRepository {
             chunk.setContent(rs.getString("content"));
             chunk.setChunkIndex(rs.getInt("chunk_index"));
             chunk.setChunkSize(rs.getInt("chunk_size"));
-            
-            // Récupérer le vecteur depuis pgvector
-            Object embeddingObj = rs.getObject("embedding");
-            if (embeddingObj != null) {
-                if (embeddingObj instanceof PGvector) {
-                    chunk.setEmbedding(((PGvector) embeddingObj).toArray());
-                }
-            }
-            
+            // Le vecteur n'est pas relu : seule la distance calculée par la requête est utile
+            chunk.setDistance(rs.getObject("distance", Double.class));
             return chunk;
         }
     }
@@ -0,0 +1,373 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.EmbeddingClientSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Décorateur d'{@link EmbeddingModel} qui adapte le débit aux limites du fournisseur.
+ *
+ * <ul>
+ *   <li>Concurrence AIMD : la limite de requêtes simultanées augmente d'environ 1 par
+ *       « fenêtre » de requêtes réussies et est multipliée par {@code decrease-factor} à
+ *       chaque 429 ;</li>
+ *   <li>budget de tokens par minute (seau à jetons) pour ne pas dépasser le quota ;</li>
+ *   <li>429 : pause globale de la durée indiquée par Retry-After (ou par le message d'erreur
+ *       OpenAI), sinon backoff exponentiel, puis nouvelle tentative ;</li>
+ *   <li>les embeddings unitaires (requêtes de recherche) arrivant dans une courte fenêtre
+ *       sont regroupés en un seul appel.</li>
+ * </ul>
+ */
+@Slf4j
+public class AdaptiveEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    // Message OpenAI : "... Please try again in 1.2s." / "... in 350ms."
+    private static final Pattern TRY_AGAIN = Pattern.compile("try again in (\\d+(?:\\.\\d+)?)(ms|s)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingClientSettings settings;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long pausedUntil = System.nanoTime();
+    private double availableTokens;
+    private long refilledAt = pausedUntil;
+
+    private final Object pendingLock = new Object();
+    private List<PendingEmbed> pending = new ArrayList<>();
+
+    private final Counter succeeded;
+    private final Counter throttled;
+    private final Counter failed;
+    private final Counter coalesced;
+
+    private record PendingEmbed(String text, CompletableFuture<float[]> result) {
+    }
+
+    private enum Outcome {
+        SUCCESS, THROTTLED, FAILED
+    }
+
+    public AdaptiveEmbeddingModel(EmbeddingModel delegate, EmbeddingClientSettings settings, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.limit = Math.max(settings.getMinConcurrency(), settings.getInitialConcurrency());
+        this.availableTokens = settings.getTokensPerMinute();
+
+        succeeded = meterRegistry.counter("mcp.embedding.requests", "outcome", "success");
+        throttled = meterRegistry.counter("mcp.embedding.requests", "outcome", "throttled");
+        failed = meterRegistry.counter("mcp.embedding.requests", "outcome", "error");
+        coalesced = meterRegistry.counter("mcp.embedding.coalesced");
+        Gauge.builder("mcp.embedding.queue.depth", this, AdaptiveEmbeddingModel::queueDepth)
+                .register(meterRegistry);
+        Gauge.builder("mcp.embedding.in.flight", this, AdaptiveEmbeddingModel::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("mcp.embedding.concurrency.limit", this, AdaptiveEmbeddingModel::concurrencyLimit)
+                .register(meterRegistry);
+        log.info("Client d'embeddings adaptatif : concurrence {} ({}-{}), budget {} tokens/min",
+                (int) limit, settings.getMinConcurrency(), settings.getMaxConcurrency(),
+                settings.getTokensPerMinute() > 0 ? settings.getTokensPerMinute() : "illimité");
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        int tokens = request.getInstructions().stream().mapToInt(TokenEstimator::count).sum();
+        return execute(tokens, () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        String text = document.getText() != null ? document.getText() : "";
+        return execute(TokenEstimator.count(text), () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * Embedding unitaire : mis en attente pendant {@code linger}, puis envoyé avec les autres
+     * textes arrivés entre-temps. Le lot part immédiatement s'il atteint {@code max-size}.
+     */
+    @Override
+    public float[] embed(String text) {
+        if (settings.getLinger().isZero() || settings.getCoalesceMaxSize() <= 1) {
+            return embed(List.of(text)).get(0);
+        }
+        PendingEmbed embed = new PendingEmbed(text, new CompletableFuture<>());
+        List<PendingEmbed> full = null;
+        synchronized (pendingLock) {
+            pending.add(embed);
+            if (pending.size() >= settings.getCoalesceMaxSize()) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                CompletableFuture.runAsync(this::flushPending, CompletableFuture.delayedExecutor(
+                        settings.getLinger().toNanos(), TimeUnit.NANOSECONDS, executor));
+            }
+        }
+        if (full != null) {
+            embedPending(full);
+        }
+        try {
+            return embed.result().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private List<PendingEmbed> takePending() {
+        List<PendingEmbed> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void flushPending() {
+        List<PendingEmbed> batch;
+        synchronized (pendingLock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            embedPending(batch);
+        }
+    }
+
+    private void embedPending(List<PendingEmbed> batch) {
+        try {
+            List<float[]> vectors = embed(batch.stream().map(PendingEmbed::text).toList());
+            if (batch.size() > 1) {
+                coalesced.increment(batch.size() - 1);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(vectors.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(embed -> embed.result().completeExceptionally(e));
+        }
+    }
+
+    private <T> T execute(int tokens, Supplier<T> call) {
+        long backoff = settings.getInitialBackoff().toNanos();
+        for (int attempt = 0; ; attempt++) {
+            acquire(tokens);
+            T result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                Optional<Duration> retryAfter = throttleDelay(e);
+                if (retryAfter.isEmpty()) {
+                    release(Outcome.FAILED, 0);
+                    failed.increment();
+                    throw e;
+                }
+                long delay = retryAfter.get().isZero() ? backoff : retryAfter.get().toNanos();
+                backoff = Math.min(backoff * 2, settings.getMaxBackoff().toNanos());
+                release(Outcome.THROTTLED, delay);
+                throttled.increment();
+                if (attempt >= settings.getMaxRetries()) {
+                    throw e;
+                }
+                log.warn("Fournisseur d'embeddings saturé (429), nouvelle tentative dans {} ms, concurrence {}",
+                        TimeUnit.NANOSECONDS.toMillis(delay), (int) concurrencyLimit());
+                continue;
+            }
+            release(Outcome.SUCCESS, 0);
+            succeeded.increment();
+            return result;
+        }
+    }
+
+    // Attend une place dans la limite de concurrence, la fin d'une pause 429 et assez de tokens
+    private void acquire(int tokens) {
+        lock.lock();
+        waiting++;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long wait = -1;
+                if (now - pausedUntil < 0) {
+                    wait = pausedUntil - now;
+                } else if (inFlight < (int) limit) {
+                    long missing = reserveTokens(tokens, now);
+                    if (missing == 0) {
+                        inFlight++;
+                        return;
+                    }
+                    wait = missing;
+                }
+                if (wait < 0) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(wait);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Embedding interrupted", e);
+        } finally {
+            waiting--;
+            lock.unlock();
+        }
+    }
+
+    // Retourne 0 si les tokens sont réservés, sinon le délai (ns) avant qu'ils soient disponibles
+    private long reserveTokens(int tokens, long now) {
+        long perMinute = settings.getTokensPerMinute();
+        if (perMinute <= 0) {
+            return 0;
+        }
+        double perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        availableTokens = Math.min(perMinute, availableTokens + (now - refilledAt) * perNano);
+        refilledAt = now;
+        // Une requête plus grosse que le budget entier attend seulement que le seau soit plein
+        double needed = Math.min(tokens, perMinute);
+        if (availableTokens >= needed) {
+            availableTokens -= needed;
+            return 0;
+        }
+        return Math.max(1, (long) ((needed - availableTokens) / perNano));
+    }
+
+    private void release(Outcome outcome, long delay) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (outcome == Outcome.SUCCESS && inFlight >= limit / 2) {
+                // Augmentation additive : +1 une fois la limite servie, seulement si elle est utilisée
+                limit = Math.min(settings.getMaxConcurrency(), limit + 1.0 / limit);
+            } else if (outcome == Outcome.THROTTLED) {
+                // Une seule diminution par rafale : les requêtes parallèles échouent ensemble
+                if (now - pausedUntil >= 0) {
+                    limit = Math.max(settings.getMinConcurrency(), limit * settings.getDecreaseFactor());
+                }
+                if (now + delay - pausedUntil > 0) {
+                    pausedUntil = now + delay;
+                }
+                availableTokens = 0;
+            }
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Délai demandé par le fournisseur si l'erreur est un 429 ({@link Duration#ZERO} quand il
+     * n'est pas indiqué), vide pour les autres erreurs.
+     */
+    static Optional<Duration> throttleDelay(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response
+                    && response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                HttpHeaders headers = response.getResponseHeaders();
+                String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+                return Optional.of(retryAfter != null ? parseRetryAfter(retryAfter) : parseMessage(response.getMessage()));
+            }
+            // Le client OpenAI de Spring AI ne garde que le statut et le corps : "429 - {...}"
+            String message = cause.getMessage();
+            if (message != null && (message.startsWith("429") || message.contains("Too Many Requests"))) {
+                return Optional.of(parseMessage(message));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Retry-After : nombre de secondes ou date HTTP
+    private static Duration parseRetryAfter(String value) {
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (RuntimeException ignored) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    private static Duration parseMessage(String message) {
+        Matcher matcher = message != null ? TRY_AGAIN.matcher(message) : null;
+        if (matcher == null || !matcher.find()) {
+            return Duration.ZERO;
+        }
+        double amount = Double.parseDouble(matcher.group(1));
+        boolean millis = matcher.group(2).toLowerCase(Locale.ROOT).equals("ms");
+        return Duration.ofNanos((long) (amount * (millis ? 1_000_000 : 1_000_000_000)));
+    }
+
+    public double queueDepth() {
+        lock.lock();
+        try {
+            synchronized (pendingLock) {
+                return waiting + pending.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double concurrencyLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Fermeture du modèle d'embeddings impossible: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.BulkImportStatusResponse;
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.BulkImport;
+import com.mcp.server.entity.DocumentMetadata;
+import com.mcp.server.repository.BulkImportRepository;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Import en masse depuis un préfixe MinIO ou une archive zip, sans passer chaque fichier en
+ * base64 par un appel MCP.
+ *
+ * <p>Les objets sont listés dans l'ordre de leur clé et téléchargés par {@code fetch-workers}
+ * threads au plus, puis confiés au {@link IngestionPipeline} (extraction, découpage,
+ * vectorisation, insertion, chacun avec ses propres workers). Au plus {@code max-in-flight}
+ * documents sont en cours à la fois et la mise en file du pipeline est bloquante : un
+ * fournisseur d'embeddings lent ralentit le listing au lieu de faire grossir les files.
+ *
+ * <p>Le point de reprise est enregistré périodiquement ; un import interrompu (arrêt du
+ * service) reprend au démarrage suivant. Un fichier dont le contenu est déjà indexé est
+ * ignoré, ce qui rend la reprise idempotente.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkImportService {
+
+    private static final int MAX_FAILED_KEYS = 100;
+
+    private final BulkImportRepository importRepo;
+    private final DocumentMetadataRepository metadataRepo;
+    private final DocumentMetadataCache metadataCache;
+    private final DocumentStorage documentStorage;
+    private final IngestionPipeline ingestionPipeline;
+    private final DocumentDeduplicator deduplicator;
+    private final DocumentIndexer documentIndexer;
+
+    @Value("${spring.ingestion.bulk.fetch-workers:8}")
+    private int fetchWorkers;
+
+    @Value("${spring.ingestion.bulk.max-in-flight:32}")
+    private int maxInFlight;
+
+    @Value("${spring.ingestion.bulk.checkpoint-interval:PT5S}")
+    private Duration checkpointInterval;
+
+    // Buckets MinIO autorisés comme source
+    @Value("${spring.ingestion.bulk.source-buckets:imports}")
+    private List<String> sourceBuckets;
+
+    // Taille maximale d'une entrée d'archive une fois décompressée
+    @Value("${spring.ingestion.bulk.max-entry-size:536870912}")
+    private long maxEntrySize;
+
+    @Value("${spring.ingestion.bulk.directory:${java.io.tmpdir}/mcp-bulk-import}")
+    private Path directory;
+
+    private final Map<String, ImportRun> runs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore fetchPermits;
+
+    @FunctionalInterface
+    private interface ObjectFetcher {
+        void fetch(Path target) throws Exception;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        try {
+            for (BulkImport running : importRepo.findByStatus(BulkImport.Status.RUNNING)) {
+                log.info("Reprise de l'import {} après {}", running.getImportId(), running.getCheckpoint());
+                launch(findImport(running.getImportId()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Reprise des imports interrompus impossible: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public BulkImport startFromPrefix(String bucket, String prefix, String tags, String uploadedBy) {
+        if (!sourceBuckets.contains(bucket)) {
+            throw new IllegalArgumentException("Bucket not allowed for bulk import: " + bucket);
+        }
+        BulkImport bulkImport = newImport(UUID.randomUUID().toString(), BulkImport.SourceType.PREFIX,
+                bucket, prefix != null ? prefix : "", tags, uploadedBy);
+        launch(importRepo.save(bulkImport));
+        return bulkImport;
+    }
+
+    // L'archive est copiée dans MinIO : l'import reste reprenable après un redémarrage
+    public BulkImport startFromArchive(Path archive, String tags, String uploadedBy) {
+        String importId = UUID.randomUUID().toString();
+        String storagePath = documentStorage.store(DocumentStorage.IMPORTS_PREFIX + importId, "archive.zip", archive);
+        BulkImport bulkImport = newImport(importId, BulkImport.SourceType.ARCHIVE, DocumentStorage.BUCKET_NAME,
+                storagePath.substring(DocumentStorage.BUCKET_NAME.length() + 1), tags, uploadedBy);
+        launch(importRepo.save(bulkImport));
+        return bulkImport;
+    }
+
+    public BulkImport resume(String importId) {
+        BulkImport bulkImport = findImport(importId);
+        if (bulkImport.getStatus() == BulkImport.Status.COMPLETED || runs.containsKey(importId)) {
+            return bulkImport;
+        }
+        bulkImport.setStatus(BulkImport.Status.RUNNING);
+        bulkImport.setError(null);
+        bulkImport.setFinishedAt(null);
+        launch(importRepo.save(bulkImport));
+        return bulkImport;
+    }
+
+    public BulkImportStatusResponse status(String importId) {
+        ImportRun run = runs.get(importId);
+        if (run != null) {
+            return run.report();
+        }
+        BulkImport bulkImport = findImport(importId);
+        LocalDateTime end = bulkImport.getFinishedAt() != null ? bulkImport.getFinishedAt() : bulkImport.getUpdatedAt();
+        return report(bulkImport, 0, Duration.between(bulkImport.getStartedAt(), end),
+                bulkImport.getDocuments(), bulkImport.getChunks());
+    }
+
+    private BulkImport findImport(String importId) {
+        return importRepo.findWithFailedKeys(importId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown import: " + importId));
+    }
+
+    private BulkImport newImport(String importId, BulkImport.SourceType sourceType, String bucket, String prefix,
+                                 String tags, String uploadedBy) {
+        BulkImport bulkImport = new BulkImport();
+        bulkImport.setImportId(importId);
+        bulkImport.setSourceType(sourceType);
+        bulkImport.setBucket(bucket);
+        bulkImport.setPrefix(prefix);
+        bulkImport.setTags(tags);
+        bulkImport.setUploadedBy(uploadedBy);
+        bulkImport.setStatus(BulkImport.Status.RUNNING);
+        bulkImport.setStartedAt(LocalDateTime.now());
+        bulkImport.setUpdatedAt(bulkImport.getStartedAt());
+        return bulkImport;
+    }
+
+    private synchronized void launch(BulkImport bulkImport) {
+        if (fetchPermits == null) {
+            fetchPermits = new Semaphore(fetchWorkers);
+        }
+        ImportRun run = new ImportRun(bulkImport);
+        if (runs.putIfAbsent(bulkImport.getImportId(), run) == null) {
+            executor.submit(() -> execute(run));
+        }
+    }
+
+    private void execute(ImportRun run) {
+        BulkImport bulkImport = run.bulkImport;
+        try {
+            Files.createDirectories(directory);
+            if (bulkImport.getSourceType() == BulkImport.SourceType.PREFIX) {
+                Iterator<String> keys = documentStorage.listObjects(bulkImport.getBucket(), bulkImport.getPrefix(),
+                        bulkImport.getCheckpoint());
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    if (key.endsWith("/")) {
+                        continue; // marqueur de dossier
+                    }
+                    dispatch(run, key, target -> documentStorage.download(bulkImport.getBucket(), key, target));
+                }
+                run.awaitIdle();
+            } else {
+                importArchive(run);
+                documentStorage.delete(DocumentStorage.IMPORTS_PREFIX + bulkImport.getImportId());
+            }
+            run.finish(BulkImport.Status.COMPLETED, null);
+            log.info("Import {} terminé : {}", bulkImport.getImportId(), run.report());
+        } catch (InterruptedException e) {
+            // Arrêt du service : l'import reste RUNNING et reprendra au prochain démarrage
+            run.checkpoint(true);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Import {} échoué", bulkImport.getImportId(), e);
+            run.finish(BulkImport.Status.FAILED, e.getMessage());
+        } finally {
+            runs.remove(bulkImport.getImportId());
+        }
+    }
+
+    private void importArchive(ImportRun run) throws Exception {
+        BulkImport bulkImport = run.bulkImport;
+        Path archive = directory.resolve(bulkImport.getImportId() + ".zip");
+        documentStorage.download(bulkImport.getBucket(), bulkImport.getPrefix(), archive);
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            String checkpoint = bulkImport.getCheckpoint();
+            List<String> names = zip.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .map(ZipEntry::getName)
+                    .filter(name -> checkpoint == null || name.compareTo(checkpoint) > 0)
+                    .sorted()
+                    .toList();
+            for (String name : names) {
+                ZipEntry entry = zip.getEntry(name);
+                dispatch(run, name, target -> copyEntry(zip, entry, target));
+            }
+            // L'archive doit rester ouverte tant que des entrées sont en cours de copie
+            run.awaitIdle();
+        } finally {
+            ChunkedUploadService.deleteQuietly(archive);
+        }
+    }
+
+    private void copyEntry(ZipFile zip, ZipEntry entry, Path target) throws IOException {
+        try (InputStream in = zip.getInputStream(entry); OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxEntrySize) {
+                    throw new IOException("Archive entry exceeds " + maxEntrySize + " bytes: " + entry.getName());
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void dispatch(ImportRun run, String key, ObjectFetcher fetcher) throws InterruptedException {
+        run.inFlight.acquire();
+        run.submitted(key);
+        executor.submit(() -> process(run, key, fetcher));
+    }
+
+    private void process(ImportRun run, String key, ObjectFetcher fetcher) {
+        BulkImport bulkImport = run.bulkImport;
+        String filename = key.substring(key.lastIndexOf('/') + 1);
+        Path file = null;
+        String indexingDocumentId = null;
+        boolean handedOff = false;
+        try {
+            fetchPermits.acquire();
+            try {
+                file = Files.createTempFile(directory, "import-", ".part");
+                fetcher.fetch(file);
+            } finally {
+                fetchPermits.release();
+            }
+
+            long size = Files.size(file);
+            String contentHash = ContentHash.sha256(file);
+            // Comme pour un upload, une copie en échec ne bloque pas l'import : elle est remplacée
+            if (size == 0 || deduplicator.findDuplicate(contentHash).isPresent()) {
+                run.skipped(key);
+                return;
+            }
+
+            String documentId = UUID.randomUUID().toString();
+            String storagePath = documentStorage.store(documentId, filename, file);
+            DocumentMetadata saved = metadataRepo.save(DocumentTools.buildMetadata(documentId, filename, size,
+                    storagePath, bulkImport.getTags(), contentHash, bulkImport.getUploadedBy()));
+            metadataCache.invalidate(documentId);
+            documentIndexer.begin(documentId);
+            indexingDocumentId = documentId;
+
+            // Bloque tant que le pipeline est saturé ; il supprime le fichier après extraction
+            IngestionJob job = ingestionPipeline.submitAndWait(DocumentMetadataView.of(saved), filename, file);
+            handedOff = true;
+            job.getCompletion().whenCompleteAsync((done, error) -> {
+                if (done.getStatus() == IngestionJob.Status.COMPLETED) {
+                    run.indexed(key, done.getIndexedChunks());
+                } else {
+                    run.failed(key, done.getError());
+                }
+            }, executor);
+        } catch (InterruptedException e) {
+            run.abandoned();
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Import {} : échec pour {}: {}", bulkImport.getImportId(), key, e.getMessage());
+            run.failed(key, e.getMessage());
+        } finally {
+            if (!handedOff && file != null) {
+                ChunkedUploadService.deleteQuietly(file);
+            }
+            // Enregistré mais jamais confié au pipeline : FAILED, remplacé au prochain import
+            if (!handedOff && indexingDocumentId != null) {
+                documentIndexer.fail(indexingDocumentId);
+            }
+        }
+    }
+
+    private static BulkImportStatusResponse report(BulkImport bulkImport, int inFlight, Duration elapsed,
+                                                   long runDocuments, long runChunks) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        return new BulkImportStatusResponse(
+                bulkImport.getImportId(),
+                bulkImport.getStatus().name(),
+                bulkImport.getBucket() + "/" + bulkImport.getPrefix(),
+                bulkImport.getDocuments(),
+                bulkImport.getSkipped(),
+                bulkImport.getFailed(),
+                bulkImport.getChunks(),
+                inFlight,
+                bulkImport.getCheckpoint(),
+                runDocuments / seconds,
+                runChunks / seconds,
+                elapsed.toSeconds(),
+                List.copyOf(bulkImport.getFailedKeys()),
+                bulkImport.getError(),
+                bulkImport.getStartedAt(),
+                bulkImport.getUpdatedAt()
+        );
+    }
+
+    /**
+     * État d'un import en cours. Les clés sont terminées dans le désordre : le point de
+     * reprise n'avance que sur le préfixe de clés entièrement traité.
+     */
+    private class ImportRun {
+
+        private final BulkImport bulkImport;
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final Deque<String> pending = new ArrayDeque<>();
+        private final Set<String> done = new HashSet<>();
+        private final long startedAt = System.nanoTime();
+        // Compteurs au (re)démarrage, pour le débit de cette exécution
+        private final long baseDocuments;
+        private final long baseChunks;
+        private long lastSave = System.nanoTime();
+
+        private ImportRun(BulkImport bulkImport) {
+            this.bulkImport = bulkImport;
+            this.baseDocuments = bulkImport.getDocuments();
+            this.baseChunks = bulkImport.getChunks();
+        }
+
+        synchronized void submitted(String key) {
+            pending.addLast(key);
+        }
+
+        void indexed(String key, int chunks) {
+            synchronized (this) {
+                bulkImport.setDocuments(bulkImport.getDocuments() + 1);
+                bulkImport.setChunks(bulkImport.getChunks() + chunks);
+            }
+            finished(key);
+        }
+
+        void skipped(String key) {
+            synchronized (this) {
+                bulkImport.setSkipped(bulkImport.getSkipped() + 1);
+            }
+            finished(key);
+        }
+
+        // Un échec n'arrête pas l'import : la clé est conservée pour un réimport individuel
+        void failed(String key, String error) {
+            synchronized (this) {
+                bulkImport.setFailed(bulkImport.getFailed() + 1);
+                if (bulkImport.getFailedKeys().size() < MAX_FAILED_KEYS) {
+                    bulkImport.getFailedKeys().add(key);
+                }
+                bulkImport.setError(error);
+            }
+            finished(key);
+        }
+
+        // Interrompu avant la fin : la clé n'est pas marquée terminée et sera retraitée à la reprise
+        void abandoned() {
+            inFlight.release();
+        }
+
+        private void finished(String key) {
+            synchronized (this) {
+                done.add(key);
+                while (!pending.isEmpty() && done.remove(pending.peekFirst())) {
+                    bulkImport.setCheckpoint(pending.pollFirst());
+                }
+            }
+            inFlight.release();
+            checkpoint(false);
+        }
+
+        synchronized void checkpoint(boolean force) {
+            long now = System.nanoTime();
+            if (force || now - lastSave >= checkpointInterval.toNanos()) {
+                bulkImport.setUpdatedAt(LocalDateTime.now());
+                importRepo.save(bulkImport);
+                lastSave = now;
+            }
+        }
+
+        void awaitIdle() throws InterruptedException {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        synchronized void finish(BulkImport.Status status, String error) {
+            bulkImport.setStatus(status);
+            if (error != null) {
+                bulkImport.setError(error);
+            }
+            bulkImport.setFinishedAt(LocalDateTime.now());
+            checkpoint(true);
+        }
+
+        synchronized BulkImportStatusResponse report() {
+            return BulkImportService.report(bulkImport, maxInFlight - inFlight.availablePermits(),
+                    Duration.ofNanos(System.nanoTime() - startedAt),
+                    bulkImport.getDocuments() - baseDocuments, bulkImport.getChunks() - baseChunks);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.repository.VectorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recopie sur {@code document_chunks} les métadonnées filtrables (propriétaire, type, tags)
+ * des documents indexés avant leur dénormalisation, puis calcule les embeddings de niveau
+ * document manquants et la colonne plein texte {@code content_tsv} des chunks antérieurs à
+ * la recherche hybride, avant de créer son index GIN. Les nouveaux documents reçoivent tout
+ * cela dès l'indexation ; ce rattrapage ne trouve plus rien une fois l'historique traité.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkMetadataBackfill {
+
+    private final VectorRepository vectorRepo;
+    private final DocumentMetadataCache metadataCache;
+
+    // Verrou consultatif partagé par les instances pour la colonne plein texte et son index
+    private static final long CONTENT_TSV_LOCK_KEY = 0x6d63705f74737600L;
+
+    @Value("${spring.vector.backfill.batch-size:100}")
+    private int batchSize;
+
+    @Value("${spring.vector.backfill.content-tsv-batch-size:1000}")
+    private int contentTsvBatchSize;
+
+    // Une fois tous les centroïdes calculés, l'anti-jointure n'est plus relancée
+    private volatile boolean documentEmbeddingsComplete;
+    private volatile boolean contentTsvComplete;
+
+    @Scheduled(initialDelayString = "${spring.vector.backfill.initial-delay:PT30S}",
+            fixedDelayString = "${spring.vector.backfill.interval:PT1H}")
+    public void backfill() {
+        String after = "";
+        int documents = 0;
+        int chunks = 0;
+        List<String> documentIds;
+        while (!(documentIds = vectorRepo.findDocumentIdsWithoutAttributes(after, batchSize)).isEmpty()) {
+            Map<String, DocumentMetadataView> metadata = metadataCache.getAll(documentIds);
+            for (String documentId : documentIds) {
+                DocumentMetadataView document = metadata.get(documentId);
+                if (document == null) {
+                    log.warn("Metadata not found for document: {}", documentId);
+                    continue;
+                }
+                chunks += vectorRepo.updateChunkAttributes(document);
+                documents++;
+            }
+            after = documentIds.get(documentIds.size() - 1);
+        }
+        if (documents > 0) {
+            log.info("Métadonnées recopiées sur {} chunks ({} documents)", chunks, documents);
+        }
+        backfillDocumentEmbeddings();
+        if (!contentTsvComplete) {
+            vectorRepo.withAdvisoryLock(CONTENT_TSV_LOCK_KEY, this::backfillContentTsv);
+        }
+    }
+
+    // Tant que la colonne n'est pas remplie, la recherche hybride ignore lexicalement les anciens chunks
+    private void backfillContentTsv() {
+        long after = 0;
+        int chunks = 0;
+        List<Long> ids;
+        while (!(ids = vectorRepo.backfillContentTsv(after, contentTsvBatchSize)).isEmpty()) {
+            after = Collections.max(ids);
+            chunks += ids.size();
+        }
+        if (chunks > 0) {
+            log.info("Colonne content_tsv calculée pour {} chunks", chunks);
+        }
+        if (vectorRepo.ensureContentTsvIndex()) {
+            log.info("Index GIN de content_tsv créé");
+        }
+        contentTsvComplete = true;
+    }
+
+    private void backfillDocumentEmbeddings() {
+        if (documentEmbeddingsComplete) {
+            return;
+        }
+        int documents = 0;
+        List<String> documentIds;
+        while (!(documentIds = vectorRepo.findDocumentIdsWithoutEmbedding(batchSize)).isEmpty()) {
+            documentIds.forEach(vectorRepo::refreshDocumentEmbedding);
+            documents += documentIds.size();
+        }
+        if (documents > 0) {
+            log.info("Embeddings de niveau document calculés pour {} documents", documents);
+        }
+        documentEmbeddingsComplete = true;
+    }
+}
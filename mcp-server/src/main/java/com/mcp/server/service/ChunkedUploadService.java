@@ -0,0 +1,132 @@
+package com.mcp.server.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gère les uploads multi-parts (begin / append / commit). Chaque part base64 est
+ * décodée et écrite immédiatement sur disque, la mémoire utilisée est bornée par
+ * la taille d'une part quelle que soit la taille du document.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    @Value("${spring.ingestion.upload.spill-dir:${java.io.tmpdir}/mcp-uploads}")
+    private Path spillDir;
+
+    @Value("${spring.ingestion.upload.max-size:1GB}")
+    private DataSize maxUploadSize;
+
+    @Value("${spring.ingestion.upload.session-timeout:PT30M}")
+    private Duration sessionTimeout;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spillDir);
+    }
+
+    public UploadSession begin(String filename, String tags, String owner) {
+        evictExpiredSessions();
+        try {
+            Path spillFile = Files.createTempFile(spillDir, "upload-", ".part");
+            UploadSession session = new UploadSession(filename, tags, owner, spillFile);
+            sessions.put(session.getUploadId(), session);
+            return session;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create upload spill file: " + e.getMessage(), e);
+        }
+    }
+
+    public UploadSession append(String uploadId, int partNumber, String base64Part, String owner) {
+        UploadSession session = getSession(uploadId, owner);
+        byte[] data = Base64.getDecoder().decode(base64Part);
+        if (session.getBytesWritten() + data.length > maxUploadSize.toBytes()) {
+            abort(uploadId, owner);
+            throw new IllegalArgumentException("Upload exceeds maximum size of " + maxUploadSize);
+        }
+        try {
+            session.append(partNumber, data);
+        } catch (IOException e) {
+            abort(uploadId, owner);
+            throw new RuntimeException("Cannot write upload part: " + e.getMessage(), e);
+        }
+        return session;
+    }
+
+    /**
+     * Termine l'upload. Le fichier de débordement appartient ensuite à l'appelant,
+     * qui doit le supprimer une fois le document ingéré.
+     */
+    public UploadSession commit(String uploadId, String owner) {
+        UploadSession session = getSession(uploadId, owner);
+        sessions.remove(uploadId);
+        try {
+            session.close();
+        } catch (IOException e) {
+            deleteQuietly(session.getSpillFile());
+            throw new RuntimeException("Cannot finalize upload: " + e.getMessage(), e);
+        }
+        return session;
+    }
+
+    public void abort(String uploadId, String owner) {
+        UploadSession session = getSession(uploadId, owner);
+        sessions.remove(uploadId);
+        discard(session);
+    }
+
+    private UploadSession getSession(String uploadId, String owner) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.getOwner().equals(owner)) {
+            throw new IllegalArgumentException("Unknown upload: " + uploadId);
+        }
+        return session;
+    }
+
+    // Aussi au début de chaque upload ; sans nouvel upload, les fichiers abandonnés restent sinon sur disque
+    @Scheduled(fixedDelayString = "${spring.ingestion.upload.eviction-interval:PT1M}")
+    public void evictExpiredSessions() {
+        LocalDateTime threshold = LocalDateTime.now().minus(sessionTimeout);
+        sessions.values().removeIf(session -> {
+            if (session.getLastActivity().isBefore(threshold)) {
+                log.info("Upload {} expiré, suppression du fichier temporaire", session.getUploadId());
+                discard(session);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.warn("Erreur à la fermeture de l'upload {}: {}", session.getUploadId(), e.getMessage());
+        }
+        deleteQuietly(session.getSpillFile());
+    }
+
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer {}: {}", file, e.getMessage());
+        }
+    }
+}
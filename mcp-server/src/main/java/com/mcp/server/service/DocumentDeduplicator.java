@@ -0,0 +1,48 @@
+package com.mcp.server.service;
+
+import com.mcp.server.entity.DocumentMetadata;
+import com.mcp.server.entity.DocumentMetadata.IndexingStatus;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Détection des ré-uploads par empreinte SHA-256 du fichier. Seul un document indexé (ou
+ * en cours d'indexation) rend un upload redondant : un document en échec est supprimé au
+ * passage, chunks partiels et fichier stocké compris, et le nouvel upload le remplace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentDeduplicator {
+
+    private final DocumentMetadataRepository metadataRepo;
+    private final DocumentIndexer documentIndexer;
+    private final DocumentStorage documentStorage;
+    private final DocumentMetadataCache metadataCache;
+
+    // Un document indexé est préféré à un document encore en cours d'indexation
+    public Optional<DocumentMetadata> findDuplicate(String contentHash) {
+        DocumentMetadata duplicate = null;
+        for (DocumentMetadata existing : metadataRepo.findByContentHash(contentHash)) {
+            if (existing.getIndexingStatus() == IndexingStatus.FAILED) {
+                log.info("Document {} en échec remplacé par un nouvel upload", existing.getDocumentId());
+                discard(existing);
+            } else if (duplicate == null || existing.isIndexed()) {
+                duplicate = existing;
+            }
+        }
+        return Optional.ofNullable(duplicate);
+    }
+
+    private void discard(DocumentMetadata metadata) {
+        String documentId = metadata.getDocumentId();
+        documentIndexer.delete(documentId);
+        documentStorage.delete(documentId);
+        metadataRepo.delete(metadata);
+        metadataCache.invalidate(documentId);
+    }
+}
@@ -0,0 +1,425 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.entity.DocumentMetadata.IndexingStatus;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkHash;
+import com.mcp.server.repository.VectorRepository.ChunkRemoval;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Vectorise et persiste les chunks d'un document. Les deux étapes sont exposées
+ * séparément pour que le pipeline asynchrone puisse les exécuter sur des stages distincts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentIndexer {
+
+    private final EmbeddingBatcher embeddingBatcher;
+    private final VectorRepository vectorRepo;
+    private final NearDuplicateIndex nearDuplicates;
+    private final DocumentMetadataRepository metadataRepo;
+
+    @Value("${spring.ingestion.streaming.flush-size:64}")
+    private int flushSize;
+
+    // Sans renouvellement pendant cette durée, l'instance qui indexait le document est considérée arrêtée
+    @Value("${spring.ingestion.lease.duration:PT5M}")
+    private Duration leaseDuration;
+
+    // Documents indexés par cette instance, dont le bail est renouvelé
+    private final Set<String> leased = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Les métadonnées filtrables du document sont recopiées sur chaque chunk. Les chunks dont
+     * le contenu a déjà été vectorisé (même empreinte SHA-256, dans ce document ou un autre)
+     * réutilisent l'embedding stocké au lieu d'appeler le modèle. Les quasi-doublons d'un
+     * chunk déjà indexé ou du même lot (SimHash, voir {@link NearDuplicateIndex}) ne sont pas
+     * vectorisés : ils référencent le chunk canonique.
+     */
+    public List<DocumentChunk> embed(DocumentMetadataView document, int firstIndex, List<String> texts) {
+        return embed(document, firstIndex, texts, Set.of());
+    }
+
+    // Les chunks de excludedCanonicals ne peuvent pas servir de chunk canonique
+    private List<DocumentChunk> embed(DocumentMetadataView document, int firstIndex, List<String> texts,
+                                      Set<Long> excludedCanonicals) {
+        String documentId = document.documentId();
+        List<String> hashes = texts.stream().map(ContentHash::sha256).toList();
+        long[] ids = vectorRepo.reserveChunkIds(texts.size());
+        Long[] signatures = new Long[texts.size()];
+        Long[] duplicateOf = new Long[texts.size()];
+        findNearDuplicates(texts, ids, signatures, duplicateOf, excludedCanonicals);
+
+        Map<String, float[]> known = new HashMap<>(vectorRepo.findEmbeddingsByHashes(new HashSet<>(hashes)));
+
+        // Textes à vectoriser, sans doublons
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (duplicateOf[i] == null && !known.containsKey(hashes.get(i))) {
+                missing.putIfAbsent(hashes.get(i), texts.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<float[]> embeddings = embeddingBatcher.embedAll(new ArrayList<>(missing.values()));
+            int i = 0;
+            for (String hash : missing.keySet()) {
+                known.put(hash, embeddings.get(i++));
+            }
+        }
+        log.debug("Document {} : {} chunks, {} embeddings réutilisés", documentId,
+                texts.size(), texts.size() - missing.size());
+
+        List<DocumentChunk> chunks = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            DocumentChunk chunk = new DocumentChunk();
+            chunk.setId(ids[i]);
+            chunk.setDocumentId(documentId);
+            chunk.setContent(texts.get(i));
+            chunk.setEmbedding(duplicateOf[i] == null ? known.get(hashes.get(i)) : null);
+            chunk.setChunkIndex(firstIndex + i);
+            chunk.setChunkSize(texts.get(i).length());
+            chunk.setContentHash(hashes.get(i));
+            chunk.setUploadedBy(document.uploadedBy());
+            chunk.setFileType(document.fileType());
+            chunk.setTags(document.tags());
+            chunk.setSimhash(signatures[i]);
+            chunk.setDuplicateOf(duplicateOf[i]);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private void findNearDuplicates(List<String> texts, long[] ids, Long[] signatures, Long[] duplicateOf,
+                                    Set<Long> excludedCanonicals) {
+        for (int i = 0; i < texts.size(); i++) {
+            OptionalLong signature = nearDuplicates.signature(texts.get(i));
+            if (signature.isEmpty()) {
+                continue;
+            }
+            signatures[i] = signature.getAsLong();
+            OptionalLong canonical = nearDuplicates.find(signatures[i], excludedCanonicals);
+            if (canonical.isPresent()) {
+                duplicateOf[i] = canonical.getAsLong();
+                continue;
+            }
+            // Chunks canoniques du lot, pas encore dans l'index
+            for (int j = 0; j < i; j++) {
+                if (signatures[j] != null && duplicateOf[j] == null
+                        && nearDuplicates.isNearDuplicate(signatures[i], signatures[j])) {
+                    duplicateOf[i] = ids[j];
+                    break;
+                }
+            }
+        }
+    }
+
+    public void store(List<DocumentChunk> chunks) {
+        List<DocumentChunk> stored = insertLinked(chunks, () -> { });
+        register(stored);
+    }
+
+    /**
+     * Insère les chunks, puis exécute {@code work}, dans une transaction qui verrouille les
+     * chunks canoniques référencés hors du lot. L'index des quasi-doublons est propre à
+     * l'instance : un chunk canonique peut avoir été supprimé entre-temps, ici ou par une
+     * autre instance. Ses quasi-doublons sont alors vectorisés et insérés comme canoniques.
+     */
+    private List<DocumentChunk> insertLinked(List<DocumentChunk> chunks, Runnable work) {
+        Set<Long> batchIds = new HashSet<>();
+        chunks.forEach(chunk -> batchIds.add(chunk.getId()));
+        while (true) {
+            Set<Long> canonicals = new HashSet<>();
+            for (DocumentChunk chunk : chunks) {
+                if (chunk.getDuplicateOf() != null && !batchIds.contains(chunk.getDuplicateOf())) {
+                    canonicals.add(chunk.getDuplicateOf());
+                }
+            }
+            List<DocumentChunk> stored = storable(chunks);
+            Set<Long> missing = vectorRepo.inTransaction(() -> {
+                Set<Long> gone = new HashSet<>(canonicals);
+                gone.removeAll(vectorRepo.lockChunks(canonicals));
+                if (gone.isEmpty()) {
+                    vectorRepo.insertChunks(stored);
+                    work.run();
+                }
+                return gone;
+            });
+            if (missing.isEmpty()) {
+                return stored;
+            }
+            missing.forEach(nearDuplicates::remove);
+            embedOrphans(chunks, missing);
+        }
+    }
+
+    // Quasi-doublons dont le chunk canonique a disparu : ils reprennent leur propre embedding
+    private void embedOrphans(List<DocumentChunk> chunks, Set<Long> missing) {
+        List<DocumentChunk> orphans = chunks.stream()
+                .filter(chunk -> chunk.getDuplicateOf() != null && missing.contains(chunk.getDuplicateOf()))
+                .toList();
+        log.debug("{} quasi-doublons de chunks supprimés, vectorisés", orphans.size());
+        Map<String, float[]> known = new HashMap<>(vectorRepo.findEmbeddingsByHashes(
+                orphans.stream().map(DocumentChunk::getContentHash).collect(Collectors.toSet())));
+        Map<String, String> texts = new LinkedHashMap<>();
+        for (DocumentChunk orphan : orphans) {
+            if (!known.containsKey(orphan.getContentHash())) {
+                texts.putIfAbsent(orphan.getContentHash(), orphan.getContent());
+            }
+        }
+        if (!texts.isEmpty()) {
+            List<float[]> embeddings = embeddingBatcher.embedAll(new ArrayList<>(texts.values()));
+            int i = 0;
+            for (String hash : texts.keySet()) {
+                known.put(hash, embeddings.get(i++));
+            }
+        }
+        for (DocumentChunk orphan : orphans) {
+            orphan.setEmbedding(known.get(orphan.getContentHash()));
+            orphan.setDuplicateOf(null);
+        }
+    }
+
+    private List<DocumentChunk> storable(List<DocumentChunk> chunks) {
+        return nearDuplicates.getMode() == NearDuplicateIndex.Mode.SKIP
+                ? chunks.stream().filter(chunk -> chunk.getDuplicateOf() == null).toList()
+                : chunks;
+    }
+
+    // Enregistrés après l'insertion : l'index ne référence que des chunks existants
+    private void register(List<DocumentChunk> stored) {
+        for (DocumentChunk chunk : stored) {
+            if (chunk.getSimhash() != null && chunk.getDuplicateOf() == null) {
+                nearDuplicates.add(chunk.getId(), chunk.getSimhash());
+            }
+        }
+    }
+
+    private void unregister(ChunkRemoval removal) {
+        removal.removed().forEach(chunk -> nearDuplicates.remove(chunk.id(), chunk.simhash()));
+        removal.promoted().forEach(chunk -> nearDuplicates.add(chunk.id(), chunk.simhash()));
+    }
+
+    public int index(DocumentMetadataView document, List<String> texts) {
+        List<DocumentChunk> chunks = embed(document, 0, texts);
+        store(chunks);
+        complete(document.documentId());
+        return chunks.size();
+    }
+
+    public record ReindexResult(int unchanged, int added, int removed) {
+    }
+
+    /**
+     * Remplace le contenu indexé du document par {@code texts} en ne touchant qu'à la
+     * différence : un chunk dont l'empreinte SHA-256 existe déjà dans le document est conservé
+     * (seul son rang est mis à jour s'il a bougé), les nouveaux sont vectorisés et insérés, les
+     * anciens restants supprimés. Les écritures sont faites dans une seule transaction.
+     */
+    public ReindexResult reindex(DocumentMetadataView document, List<String> texts) {
+        String documentId = document.documentId();
+        Map<String, Deque<ChunkHash>> existing = new HashMap<>();
+        for (ChunkHash chunk : vectorRepo.findChunkHashes(documentId)) {
+            existing.computeIfAbsent(chunk.contentHash(), hash -> new ArrayDeque<>()).add(chunk);
+        }
+
+        List<Long> movedIds = new ArrayList<>();
+        List<Integer> movedIndexes = new ArrayList<>();
+        List<String> addedTexts = new ArrayList<>();
+        List<Integer> addedIndexes = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            Deque<ChunkHash> candidates = existing.get(ContentHash.sha256(texts.get(i)));
+            ChunkHash kept = candidates != null ? candidates.pollFirst() : null;
+            if (kept == null) {
+                addedTexts.add(texts.get(i));
+                addedIndexes.add(i);
+            } else if (kept.chunkIndex() != i) {
+                movedIds.add(kept.id());
+                movedIndexes.add(i);
+            }
+        }
+        List<Long> removedIds = existing.values().stream()
+                .flatMap(Deque::stream)
+                .map(ChunkHash::id)
+                .toList();
+
+        // Vectorisation hors transaction ; les anciens chunks supprimés ne peuvent pas devenir canoniques
+        List<DocumentChunk> added = addedTexts.isEmpty() ? List.of()
+                : embed(document, 0, addedTexts, new HashSet<>(removedIds));
+        for (int i = 0; i < added.size(); i++) {
+            added.get(i).setChunkIndex(addedIndexes.get(i));
+        }
+        List<ChunkRemoval> removal = new ArrayList<>(1);
+        List<DocumentChunk> stored = insertLinked(added, () -> {
+            vectorRepo.updateChunkIndexes(movedIds.stream().mapToLong(Long::longValue).toArray(),
+                    movedIndexes.stream().mapToInt(Integer::intValue).toArray());
+            removal.add(vectorRepo.removeChunks(removedIds));
+        });
+        register(stored);
+        unregister(removal.get(0));
+        // Le statut du document est mis à jour par l'appelant, avec ses métadonnées
+        vectorRepo.refreshDocumentEmbedding(documentId);
+
+        log.info("Document {} réindexé : {} chunks conservés ({} déplacés), {} ajoutés, {} supprimés", documentId,
+                texts.size() - added.size(), movedIds.size(), added.size(), removedIds.size());
+        return new ReindexResult(texts.size() - added.size(), added.size(), removedIds.size());
+    }
+
+    // Supprime chunks et embedding de niveau document ; retourne le nombre de chunks supprimés
+    public int delete(String documentId) {
+        List<Long> ids = vectorRepo.findChunkIds(documentId);
+        ChunkRemoval removal = vectorRepo.inTransaction(() -> {
+            vectorRepo.deleteDocumentEmbedding(documentId);
+            return vectorRepo.removeChunks(ids);
+        });
+        unregister(removal);
+        return ids.size();
+    }
+
+    // Le document enregistré INDEXING est indexé par cette instance jusqu'à complete ou fail
+    public void begin(String documentId) {
+        leased.add(documentId);
+    }
+
+    // Document supprimé avant d'avoir été indexé : son bail n'est plus renouvelé
+    public void release(String documentId) {
+        leased.remove(documentId);
+    }
+
+    @Scheduled(fixedDelayString = "${spring.ingestion.lease.renew-interval:PT30S}")
+    public void renewLeases() {
+        try {
+            if (!leased.isEmpty()) {
+                metadataRepo.renewIndexingHeartbeat(new ArrayList<>(leased), IndexingStatus.INDEXING, LocalDateTime.now());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Renouvellement des baux d'indexation impossible: {}", e.getMessage());
+        }
+        failExpired();
+    }
+
+    /**
+     * Les documents restés INDEXING sans renouvellement de leur bail ont été interrompus par
+     * l'arrêt de l'instance qui les indexait ; ceux des autres instances en cours sont laissés
+     * intacts. Ils passent FAILED, chunks partiels supprimés, pour être réindexés au prochain
+     * upload. Exécuté aussi au démarrage, avant la reprise des imports et le chargement de
+     * l'index des quasi-doublons.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void failExpired() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(leaseDuration);
+            for (String documentId : metadataRepo.findExpiredIndexing(IndexingStatus.INDEXING, cutoff)) {
+                if (!leased.contains(documentId) && metadataRepo.expireIndexing(documentId,
+                        IndexingStatus.INDEXING, IndexingStatus.FAILED, cutoff) > 0) {
+                    log.warn("Indexation du document {} interrompue (bail expiré), chunks partiels supprimés", documentId);
+                    removePartialChunks(documentId);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Récupération des indexations interrompues impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tous les chunks du document sont insérés : son embedding de niveau document peut être
+     * calculé. Un document qui n'est plus INDEXING (bail expiré et repris par une autre
+     * instance) n'est pas marqué COMPLETED : l'indexation est en échec.
+     */
+    public void complete(String documentId) {
+        leased.remove(documentId);
+        vectorRepo.refreshDocumentEmbedding(documentId);
+        if (metadataRepo.updateIndexingStatus(documentId, IndexingStatus.INDEXING, IndexingStatus.COMPLETED) == 0) {
+            throw new IllegalStateException("Indexing lease of document " + documentId + " expired before completion");
+        }
+    }
+
+    /**
+     * Indexation en échec : les chunks déjà insérés sont supprimés pour ne pas laisser un
+     * document tronqué dans les recherches, et le document est marqué FAILED.
+     */
+    public void fail(String documentId) {
+        leased.remove(documentId);
+        removePartialChunks(documentId);
+        metadataRepo.updateIndexingStatus(documentId, IndexingStatus.FAILED);
+    }
+
+    private void removePartialChunks(String documentId) {
+        try {
+            delete(documentId);
+        } catch (Exception e) {
+            log.error("Impossible de supprimer les chunks partiels du document {}", documentId, e);
+        }
+    }
+
+    /**
+     * Indexation en flux : les chunks sont vectorisés et insérés par paquets de
+     * {@code flush-size}, seul le paquet courant est conservé en mémoire.
+     */
+    public StreamWriter openStream(DocumentMetadataView document) {
+        return new StreamWriter(document);
+    }
+
+    public class StreamWriter implements Consumer<String> {
+
+        private final DocumentMetadataView document;
+        private final List<String> pending = new ArrayList<>();
+        private int nextIndex;
+
+        private StreamWriter(DocumentMetadataView document) {
+            this.document = document;
+        }
+
+        @Override
+        public void accept(String chunk) {
+            pending.add(chunk);
+            if (pending.size() >= flushSize) {
+                flush();
+            }
+        }
+
+        // Retourne le nombre total de chunks indexés
+        public int finish() {
+            flush();
+            complete(document.documentId());
+            return nextIndex;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            store(embed(document, nextIndex, pending));
+            nextIndex += pending.size();
+            pending.clear();
+        }
+    }
+}
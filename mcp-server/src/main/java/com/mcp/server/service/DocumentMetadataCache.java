@@ -0,0 +1,75 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résolution groupée des métadonnées pour les résultats de recherche : les documents absents
+ * du cache LRU sont chargés en une seule requête (tags compris), quel que soit le nombre de
+ * résultats. Les entrées sont invalidées à chaque écriture des métadonnées.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentMetadataCache {
+
+    private final DocumentMetadataRepository metadataRepo;
+
+    @Value("${spring.vector.search.metadata-cache.max-size:5000}")
+    private int maxSize;
+
+    private Map<String, DocumentMetadataView> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DocumentMetadataView> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Map<String, DocumentMetadataView> getAll(Collection<String> documentIds) {
+        Map<String, DocumentMetadataView> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (this) {
+            for (String documentId : new LinkedHashSet<>(documentIds)) {
+                DocumentMetadataView view = cache.get(documentId);
+                if (view != null) {
+                    result.put(documentId, view);
+                } else {
+                    missing.add(documentId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<DocumentMetadataView> loaded = metadataRepo.findWithTagsByDocumentIdIn(missing).stream()
+                    .map(DocumentMetadataView::of)
+                    .toList();
+            synchronized (this) {
+                for (DocumentMetadataView view : loaded) {
+                    cache.put(view.documentId(), view);
+                    result.put(view.documentId(), view);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized void invalidate(String documentId) {
+        cache.remove(documentId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.mcp.server.service;
+
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stockage des fichiers bruts dans MinIO.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentStorage {
+
+    static final String BUCKET_NAME = "documents";
+    // Archives d'import en masse, conservées jusqu'à la fin de l'import pour pouvoir le reprendre
+    static final String IMPORTS_PREFIX = "imports/";
+
+    private final MinioClient minioClient;
+
+    public String store(String docId, String filename, byte[] content) {
+        return store(docId, filename, new ByteArrayInputStream(content), content.length);
+    }
+
+    // Le SDK découpe le flux en parts multipart : seul un part est en mémoire à la fois
+    public String store(String docId, String filename, Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return store(docId, filename, in, Files.size(file));
+        } catch (java.io.IOException e) {
+            throw new RuntimeException("MinIO upload failed: " + e.getMessage(), e);
+        }
+    }
+
+    private String store(String docId, String filename, InputStream content, long size) {
+        try {
+            ensureBucket();
+            String objectPath = docId + "/" + filename;
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(BUCKET_NAME)
+                            .object(objectPath)
+                            .stream(content, size, -1)
+                            .contentType("application/octet-stream")
+                            .build()
+            );
+            return BUCKET_NAME + "/" + objectPath;
+        } catch (Exception e) {
+            log.error("MinIO upload failed", e);
+            throw new RuntimeException("MinIO upload failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Clés des objets sous {@code prefix}, dans l'ordre lexicographique et après
+     * {@code startAfter} si renseigné. La liste est paginée par le SDK au fil de l'itération.
+     */
+    public Iterator<String> listObjects(String bucket, String prefix, String startAfter) {
+        ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true);
+        if (startAfter != null) {
+            args.startAfter(startAfter);
+        }
+        Iterator<Result<Item>> items = minioClient.listObjects(args.build()).iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public String next() {
+                try {
+                    return items.next().get().objectName();
+                } catch (Exception e) {
+                    throw new RuntimeException("MinIO listing failed: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    public void download(String bucket, String object, Path target) {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(object)
+                .build())) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            throw new RuntimeException("MinIO download failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Supprime tous les objets du document
+    public void delete(String docId) {
+        deleteObjects(docId, null);
+    }
+
+    // Supprime les objets du document autres que storagePath (version précédente après réindexation)
+    public void deleteOthers(String docId, String storagePath) {
+        deleteObjects(docId, storagePath.substring(BUCKET_NAME.length() + 1));
+    }
+
+    // Une requête DeleteObjects (jusqu'à 1000 objets) par lot, plutôt qu'un appel par objet
+    private void deleteObjects(String docId, String keepObject) {
+        try {
+            List<DeleteObject> objects = new ArrayList<>();
+            for (Result<Item> item : minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .prefix(docId + "/")
+                    .recursive(true)
+                    .build())) {
+                String name = item.get().objectName();
+                if (!name.equals(keepObject)) {
+                    objects.add(new DeleteObject(name));
+                }
+            }
+            if (objects.isEmpty()) {
+                return;
+            }
+            // Le résultat est paresseux : la suppression n'a lieu qu'en le parcourant
+            for (Result<DeleteError> result : minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .objects(objects)
+                    .build())) {
+                DeleteError error = result.get();
+                log.warn("Suppression MinIO impossible pour {}: {}", error.objectName(), error.message());
+            }
+        } catch (Exception e) {
+            log.error("MinIO delete failed", e);
+            throw new RuntimeException("MinIO delete failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void ensureBucket() {
+        // Créer le bucket s'il n'existe pas
+        try {
+            if (!minioClient.bucketExists(BucketExistsArgs.builder()
+                    .bucket(BUCKET_NAME).build())) {
+                minioClient.makeBucket(MakeBucketArgs.builder()
+                        .bucket(BUCKET_NAME).build());
+                log.info("Bucket '{}' créé", BUCKET_NAME);
+            }
+        } catch (Exception e) {
+            log.warn("Erreur lors de la vérification/création du bucket: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.mcp.server.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.Splitter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Extraction du texte brut des documents (PDFBox pour les PDF).
+ *
+ * <p>Au-delà d'un certain nombre de pages, le PDF est découpé en plages de pages extraites
+ * en parallèle. Le PDF n'est chargé qu'une fois : un {@link PDDocument} n'étant pas
+ * thread-safe, chaque plage en est séparée et sérialisée, puis relue et extraite par un
+ * worker ; les résultats sont réassemblés dans l'ordre des pages.
+ */
+@Component
+@Slf4j
+public class DocumentTextExtractor {
+
+    @Value("${spring.ingestion.extraction.parallel-min-pages:32}")
+    private int parallelMinPages;
+
+    @Value("${spring.ingestion.extraction.pages-per-range:16}")
+    private int pagesPerRange;
+
+    @Value("${spring.ingestion.extraction.parallelism:0}")
+    private int parallelism;
+
+    @Value("${spring.ingestion.extraction.streaming-main-memory:16MB}")
+    private DataSize streamingMainMemory;
+
+    private ForkJoinPool extractionPool;
+
+    @FunctionalInterface
+    private interface PdfOpener {
+        PDDocument open() throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        extractionPool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionPool.shutdownNow();
+    }
+
+    public String extractText(byte[] content, String filename) {
+        try {
+            String extension = getExtension(filename).toLowerCase();
+            if ("pdf".equals(extension)) {
+                return extractPdf(() -> Loader.loadPDF(content));
+            } else if ("txt".equals(extension)) {
+                return new String(content, StandardCharsets.UTF_8);
+            } else {
+                log.warn("Unsupported file type: {}, returning empty text", extension);
+                return "";
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract text: " + e.getMessage(), e);
+        }
+    }
+
+    // Variante fichier : PDFBox lit le PDF depuis le disque sans copie intégrale en mémoire
+    public String extractText(Path file, String filename) {
+        try {
+            String extension = getExtension(filename).toLowerCase();
+            if ("pdf".equals(extension)) {
+                return extractPdf(() -> Loader.loadPDF(file.toFile()));
+            } else if ("txt".equals(extension)) {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            } else {
+                log.warn("Unsupported file type: {}, returning empty text", extension);
+                return "";
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract text: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extraction en flux pour les très gros documents : le PDF est ouvert depuis le disque
+     * avec un cache borné en mémoire (le reste déborde dans un scratch file) et le texte est
+     * transmis page par page. Les {@link CharSequence} reçues ne doivent pas être conservées.
+     * Une erreur de lecture est propagée : les pages déjà transmises ne forment pas le document.
+     */
+    public void extractPages(Path file, String filename, Consumer<CharSequence> pageSink) {
+        try {
+            String extension = getExtension(filename).toLowerCase();
+            if ("pdf".equals(extension)) {
+                try (PDDocument document = Loader.loadPDF(file.toFile(),
+                        MemoryUsageSetting.setupMixed(streamingMainMemory.toBytes()).streamCache)) {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    int pageCount = document.getNumberOfPages();
+                    for (int page = 1; page <= pageCount; page++) {
+                        stripper.setStartPage(page);
+                        stripper.setEndPage(page);
+                        pageSink.accept(stripper.getText(document));
+                    }
+                }
+            } else if ("txt".equals(extension)) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    char[] buffer = new char[8192];
+                    int read;
+                    while ((read = reader.read(buffer)) > 0) {
+                        pageSink.accept(CharBuffer.wrap(buffer, 0, read));
+                    }
+                }
+            } else {
+                log.warn("Unsupported file type: {}, returning empty text", extension);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract text: " + e.getMessage(), e);
+        }
+    }
+
+    private String extractPdf(PdfOpener opener) throws IOException {
+        int pageCount;
+        List<CompletableFuture<String>> ranges = new ArrayList<>();
+        try (PDDocument document = opener.open()) {
+            pageCount = document.getNumberOfPages();
+            if (pageCount < parallelMinPages) {
+                return stripPages(document, 1, pageCount);
+            }
+
+            // Séparation et sérialisation sur ce thread, les workers ne relisent que leur plage
+            Splitter splitter = new Splitter();
+            splitter.setSplitAtPage(pagesPerRange);
+            List<PDDocument> parts = splitter.split(document);
+            try {
+                for (PDDocument part : parts) {
+                    byte[] range = serialize(part);
+                    ranges.add(CompletableFuture.supplyAsync(() -> {
+                        try (PDDocument rangeDocument = Loader.loadPDF(range)) {
+                            return stripPages(rangeDocument, 1, rangeDocument.getNumberOfPages());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, extractionPool));
+                }
+            } finally {
+                for (PDDocument part : parts) {
+                    part.close();
+                }
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (CompletableFuture<String> range : ranges) {
+            text.append(range.join());
+        }
+        log.debug("PDF de {} pages extrait en {} plages parallèles", pageCount, ranges.size());
+        return text.toString();
+    }
+
+    private static byte[] serialize(PDDocument part) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        part.save(out);
+        return out.toByteArray();
+    }
+
+    private static String stripPages(PDDocument document, int firstPage, int lastPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        return stripper.getText(document);
+    }
+
+    public static String getExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        return lastDot > 0 ? filename.substring(lastDot + 1) : "";
+    }
+}
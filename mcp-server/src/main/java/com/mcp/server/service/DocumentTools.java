@@ -1,35 +1,42 @@
 package com.mcp.server.service;
 
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.BatchSearchResult;
+import com.mcp.server.dto.BulkImportStatusResponse;
+import com.mcp.server.dto.DocumentMetadataView;
 import com.mcp.server.dto.DocumentSearchResult;
 import com.mcp.server.dto.DocumentUploadResponse;
+import com.mcp.server.dto.IngestionStatusResponse;
+import com.mcp.server.dto.SearchCursor;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.dto.SearchMode;
+import com.mcp.server.dto.UploadSessionResponse;
+import com.mcp.server.entity.BulkImport;
 import com.mcp.server.entity.DocumentChunk;
 import com.mcp.server.entity.DocumentMetadata;
+import com.mcp.server.index.VectorSearchBackend;
 import com.mcp.server.repository.DocumentMetadataRepository;
 import com.mcp.server.repository.VectorRepository;
-import io.minio.BucketExistsArgs;
-import io.minio.MakeBucketArgs;
-import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -38,8 +45,21 @@ public class DocumentTools {
 
     private final DocumentMetadataRepository metadataRepo;
     private final VectorRepository vectorRepo;
-    private final MinioClient minioClient;
+    private final VectorSearchBackend searchBackend;
     private final EmbeddingModel embeddingModel;
+    private final DocumentTextExtractor textExtractor;
+    private final TextChunker textChunker;
+    private final DocumentIndexer documentIndexer;
+    private final IngestionPipeline ingestionPipeline;
+    private final DocumentStorage documentStorage;
+    private final ChunkedUploadService chunkedUploads;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final DocumentMetadataCache metadataCache;
+    private final BulkImportService bulkImports;
+    private final DocumentDeduplicator deduplicator;
+
+    @Value("${spring.vector.batch.max-queries:20}")
+    private int maxBatchQueries;
 
     // --- Upload tool ---
     @McpTool(description = "Upload a document and store it with metadata")
@@ -49,167 +69,521 @@ public class DocumentTools {
             @McpToolParam(description = "Original filename") String filename,
             @McpToolParam(description = "Tags (comma-separated)", required = false) String tags) {
 
+        String indexingDocumentId = null;
         try {
+            byte[] content = java.util.Base64.getDecoder().decode(base64Content);
+
+            // 0. Document déjà indexé : on renvoie l'existant
+            String contentHash = ContentHash.sha256(content);
+            Optional<DocumentUploadResponse> duplicate = findDuplicate(contentHash);
+            if (duplicate.isPresent()) {
+                return duplicate.get();
+            }
+
             // 1. Sauvegarder dans MinIO
             String documentId = UUID.randomUUID().toString();
-            byte[] content = java.util.Base64.getDecoder().decode(base64Content);
-            String storagePath = saveToMinIO(documentId, filename, content);
+            String storagePath = documentStorage.store(documentId, filename, content);
 
             // 2. Extraire texte (ex: PDFBox pour PDF)
-            String extractedText = extractText(content, filename);
+            String extractedText = textExtractor.extractText(content, filename);
 
             // 3. Créer métadonnées
-            DocumentMetadata metadata = new DocumentMetadata();
-            metadata.setDocumentId(documentId);
-            metadata.setTitle(filename);
-            metadata.setFileType(getExtension(filename));
-            metadata.setFileSize((long) content.length);
-            metadata.setStoragePath(storagePath);
-            metadata.setUploadedAt(LocalDateTime.now());
-            metadata.setUploadedBy(getCurrentUser());
-            if (tags != null && !tags.isEmpty()) {
-                metadata.setTags(Arrays.asList(tags.split(",")));
-            } else {
-                metadata.setTags(new ArrayList<>());
-            }
-            metadataRepo.save(metadata);
+            DocumentMetadataView document = saveMetadata(
+                    buildMetadata(documentId, filename, content.length, storagePath, tags, contentHash));
+            documentIndexer.begin(documentId);
+            indexingDocumentId = documentId;
 
             // 4. Chunker et vectoriser
-            List<String> chunks = chunkText(extractedText, 1000); // 1000 mots
-            for (int i = 0; i < chunks.size(); i++) {
-                float[] embedding = embeddingModel.embed(chunks.get(i));
-                
-                DocumentChunk chunk = new DocumentChunk();
-                chunk.setDocumentId(documentId);
-                chunk.setContent(chunks.get(i));
-                chunk.setEmbedding(embedding);
-                chunk.setChunkIndex(i);
-                chunk.setChunkSize(chunks.get(i).length());
-                vectorRepo.insertChunk(chunk);
-            }
+            documentIndexer.index(document, textChunker.chunk(extractedText));
 
             DocumentUploadResponse response = new DocumentUploadResponse();
             response.setDocumentId(documentId);
             response.setMessage("Uploaded successfully");
             return response;
+        } catch (Exception e) {
+            log.error("Error uploading document", e);
+            failIndexing(indexingDocumentId);
+            throw new RuntimeException("Failed to upload document: " + e.getMessage(), e);
+        }
+    }
+
+    @McpTool(description = "Upload a document and index it in the background. Returns a job id to poll with getIngestionStatus")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public DocumentUploadResponse uploadDocumentAsync(
+            @McpToolParam(description = "Base64 encoded file content") String base64Content,
+            @McpToolParam(description = "Original filename") String filename,
+            @McpToolParam(description = "Tags (comma-separated)", required = false) String tags) {
+
+        try {
+            byte[] content = java.util.Base64.getDecoder().decode(base64Content);
+            String contentHash = ContentHash.sha256(content);
+            Optional<DocumentUploadResponse> duplicate = findDuplicate(contentHash);
+            if (duplicate.isPresent()) {
+                return duplicate.get();
+            }
+
+            String documentId = UUID.randomUUID().toString();
+            String storagePath = documentStorage.store(documentId, filename, content);
+            DocumentMetadataView document = saveMetadata(
+                    buildMetadata(documentId, filename, content.length, storagePath, tags, contentHash));
+            documentIndexer.begin(documentId);
+
+            // Extraction, découpage, vectorisation et insertion continuent dans le pipeline
+            IngestionJob job;
+            try {
+                job = ingestionPipeline.submit(document, filename, content);
+            } catch (RuntimeException e) {
+                discardRejected(documentId);
+                throw e;
+            }
+
+            DocumentUploadResponse response = new DocumentUploadResponse();
+            response.setDocumentId(documentId);
+            response.setJobId(job.getJobId());
+            response.setMessage("Upload accepted, indexing in progress");
+            return response;
         } catch (Exception e) {
             log.error("Error uploading document", e);
             throw new RuntimeException("Failed to upload document: " + e.getMessage(), e);
         }
     }
 
+    @McpTool(description = "Get the progress of an asynchronous document ingestion")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:read')")
+    public IngestionStatusResponse getIngestionStatus(
+            @McpToolParam(description = "Job id returned by uploadDocumentAsync") String jobId) {
+
+        IngestionJob job = ingestionPipeline.getJob(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown ingestion job: " + jobId));
+        return new IngestionStatusResponse(
+                job.getJobId(),
+                job.getDocumentId(),
+                job.getFilename(),
+                job.getStatus().name(),
+                job.getTotalChunks(),
+                job.getIndexedChunks(),
+                job.getError(),
+                job.getCreatedAt(),
+                job.getUpdatedAt()
+        );
+    }
+
+    // --- Upload multi-parts (gros fichiers) ---
+    @McpTool(description = "Start a multi-part upload for a large document. Send parts with appendUploadPart then call commitUpload")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public UploadSessionResponse beginUpload(
+            @McpToolParam(description = "Original filename") String filename,
+            @McpToolParam(description = "Tags (comma-separated)", required = false) String tags) {
+
+        UploadSession session = chunkedUploads.begin(filename, tags, getCurrentUser());
+        return new UploadSessionResponse(session.getUploadId(), 0, 0);
+    }
+
+    @McpTool(description = "Append the next base64 encoded part to a multi-part upload. Parts are numbered from 0")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public UploadSessionResponse appendUploadPart(
+            @McpToolParam(description = "Upload id returned by beginUpload") String uploadId,
+            @McpToolParam(description = "Part number, starting at 0") int partNumber,
+            @McpToolParam(description = "Base64 encoded part content") String base64Part) {
+
+        UploadSession session = chunkedUploads.append(uploadId, partNumber, base64Part, getCurrentUser());
+        return new UploadSessionResponse(session.getUploadId(), session.getNextPart(), session.getBytesWritten());
+    }
+
+    @McpTool(description = "Complete a multi-part upload, store the document and index it")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public DocumentUploadResponse commitUpload(
+            @McpToolParam(description = "Upload id returned by beginUpload") String uploadId,
+            @McpToolParam(description = "Index in the background and return a job id", required = false) Boolean async) {
+
+        UploadSession session = chunkedUploads.commit(uploadId, getCurrentUser());
+        Path file = session.getSpillFile();
+        boolean handedOff = false;
+        String indexingDocumentId = null;
+        try {
+            Optional<DocumentUploadResponse> duplicate = findDuplicate(session.getContentHash());
+            if (duplicate.isPresent()) {
+                return duplicate.get();
+            }
+
+            String documentId = UUID.randomUUID().toString();
+            String filename = session.getFilename();
+            String storagePath = documentStorage.store(documentId, filename, file);
+            DocumentMetadataView document = saveMetadata(buildMetadata(documentId, filename,
+                    session.getBytesWritten(), storagePath, session.getTags(), session.getContentHash()));
+            documentIndexer.begin(documentId);
+
+            DocumentUploadResponse response = new DocumentUploadResponse();
+            response.setDocumentId(documentId);
+            if (Boolean.TRUE.equals(async)) {
+                // Le pipeline supprime le fichier après extraction
+                IngestionJob job;
+                try {
+                    job = ingestionPipeline.submit(document, filename, file);
+                } catch (RuntimeException e) {
+                    discardRejected(documentId);
+                    throw e;
+                }
+                handedOff = true;
+                response.setJobId(job.getJobId());
+                response.setMessage("Upload accepted, indexing in progress");
+            } else {
+                // Extraction page par page : ni le texte complet ni la liste des chunks ne sont matérialisés
+                indexingDocumentId = documentId;
+                DocumentIndexer.StreamWriter indexWriter = documentIndexer.openStream(document);
+                TextChunker.ChunkWriter chunker = textChunker.open(indexWriter);
+                textExtractor.extractPages(file, filename, chunker::append);
+                chunker.finish();
+                indexWriter.finish();
+                response.setMessage("Uploaded successfully");
+            }
+            return response;
+        } catch (Exception e) {
+            log.error("Error committing upload {}", uploadId, e);
+            failIndexing(indexingDocumentId);
+            throw new RuntimeException("Failed to upload document: " + e.getMessage(), e);
+        } finally {
+            if (!handedOff) {
+                ChunkedUploadService.deleteQuietly(file);
+            }
+        }
+    }
+
+    @McpTool(description = "Abort a multi-part upload and discard the received parts")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public String abortUpload(
+            @McpToolParam(description = "Upload id returned by beginUpload") String uploadId) {
+
+        chunkedUploads.abort(uploadId, getCurrentUser());
+        return "Upload aborted";
+    }
+
+    // --- Suppression et réindexation ---
+    @McpTool(description = "Delete a document with its indexed chunks, metadata and stored files")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public String deleteDocument(
+            @McpToolParam(description = "Document ID") String documentId) {
+
+        DocumentMetadata metadata = findMetadata(documentId);
+        try {
+            // Vecteurs d'abord : sans eux le document n'apparaît plus dans les recherches
+            int chunks = documentIndexer.delete(documentId);
+            documentStorage.delete(documentId);
+            metadataRepo.delete(metadata);
+            metadataCache.invalidate(documentId);
+            log.info("Document {} supprimé ({} chunks)", documentId, chunks);
+            return "Document deleted (" + chunks + " chunks)";
+        } catch (Exception e) {
+            log.error("Error deleting document {}", documentId, e);
+            throw new RuntimeException("Failed to delete document: " + e.getMessage(), e);
+        }
+    }
+
+    @McpTool(description = "Replace the content of an existing document, keeping its ID. Only the chunks that changed are embedded again")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public DocumentUploadResponse reindexDocument(
+            @McpToolParam(description = "Document ID") String documentId,
+            @McpToolParam(description = "Base64 encoded file content of the new revision") String base64Content,
+            @McpToolParam(description = "Filename of the new revision (defaults to the current one)", required = false) String filename,
+            @McpToolParam(description = "Tags (comma-separated), replacing the current ones", required = false) String tags) {
+
+        DocumentMetadata metadata = findMetadata(documentId);
+        try {
+            byte[] content = java.util.Base64.getDecoder().decode(base64Content);
+            String name = filename != null && !filename.isBlank() ? filename : metadata.getTitle();
+            String contentHash = ContentHash.sha256(content);
+
+            DocumentUploadResponse response = new DocumentUploadResponse();
+            response.setDocumentId(documentId);
+            if (contentHash.equals(metadata.getContentHash()) && name.equals(metadata.getTitle()) && tags == null) {
+                response.setMessage("Document unchanged");
+                return response;
+            }
+
+            // 1. Nouvelle révision dans MinIO ; les précédentes ne sont supprimées qu'après la réindexation
+            String extractedText = textExtractor.extractText(content, name);
+            String storagePath = documentStorage.store(documentId, name, content);
+
+            // 2. Métadonnées mises à jour en mémoire : l'empreinte n'est enregistrée qu'une fois
+            // les chunks écrits, pour qu'une réindexation en échec puisse être relancée
+            DocumentMetadataView previous = DocumentMetadataView.of(metadata);
+            metadata.setTitle(name);
+            metadata.setFileType(DocumentTextExtractor.getExtension(name));
+            metadata.setFileSize((long) content.length);
+            metadata.setStoragePath(storagePath);
+            metadata.setContentHash(contentHash);
+            if (tags != null) {
+                metadata.setTags(new ArrayList<>(tags.isEmpty() ? List.of() : Arrays.asList(tags.split(","))));
+            }
+            DocumentMetadataView document = DocumentMetadataView.of(metadata);
+
+            // 3. Seuls les chunks modifiés sont vectorisés et écrits
+            DocumentIndexer.ReindexResult result = documentIndexer.reindex(document, textChunker.chunk(extractedText));
+
+            // 4. Attributs filtrables recopiés sur les chunks conservés s'ils ont changé
+            metadata.setIndexingStatus(DocumentMetadata.IndexingStatus.COMPLETED);
+            saveMetadata(metadata);
+            if (!Objects.equals(previous.fileType(), document.fileType()) || !previous.tags().equals(document.tags())) {
+                vectorRepo.updateChunkAttributes(document);
+            }
+            documentStorage.deleteOthers(documentId, storagePath);
+            response.setMessage("Reindexed: " + result.unchanged() + " chunks unchanged, "
+                    + result.added() + " added, " + result.removed() + " removed");
+            return response;
+        } catch (Exception e) {
+            log.error("Error reindexing document {}", documentId, e);
+            throw new RuntimeException("Failed to reindex document: " + e.getMessage(), e);
+        }
+    }
+
+    // --- Import en masse ---
+    @McpTool(description = "Import every object under a storage prefix in the background, skipping content already indexed. "
+            + "Returns an import id to poll with getImportStatus")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public BulkImportStatusResponse importFromStorage(
+            @McpToolParam(description = "Source bucket") String bucket,
+            @McpToolParam(description = "Object key prefix, for example reports/2024/", required = false) String prefix,
+            @McpToolParam(description = "Tags (comma-separated) applied to every imported document", required = false) String tags) {
+
+        BulkImport bulkImport = bulkImports.startFromPrefix(bucket, prefix, tags, getCurrentUser());
+        return bulkImports.status(bulkImport.getImportId());
+    }
+
+    @McpTool(description = "Import every file of a zip archive sent with beginUpload/appendUploadPart, in the background. "
+            + "Returns an import id to poll with getImportStatus")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public BulkImportStatusResponse importArchive(
+            @McpToolParam(description = "Upload id returned by beginUpload for the zip archive") String uploadId,
+            @McpToolParam(description = "Tags (comma-separated) applied to every imported document", required = false) String tags) {
+
+        UploadSession session = chunkedUploads.commit(uploadId, getCurrentUser());
+        try {
+            BulkImport bulkImport = bulkImports.startFromArchive(session.getSpillFile(),
+                    tags != null ? tags : session.getTags(), getCurrentUser());
+            return bulkImports.status(bulkImport.getImportId());
+        } finally {
+            ChunkedUploadService.deleteQuietly(session.getSpillFile());
+        }
+    }
+
+    @McpTool(description = "Get the progress and throughput of a bulk import")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:read')")
+    public BulkImportStatusResponse getImportStatus(
+            @McpToolParam(description = "Import id returned by importFromStorage or importArchive") String importId) {
+        return bulkImports.status(importId);
+    }
+
+    @McpTool(description = "Resume a failed bulk import from its last checkpoint")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:write')")
+    public BulkImportStatusResponse resumeImport(
+            @McpToolParam(description = "Import id returned by importFromStorage or importArchive") String importId) {
+
+        bulkImports.resume(importId);
+        return bulkImports.status(importId);
+    }
+
     // --- Search tool ---
+    @PreAuthorize("hasAuthority('SCOPE_mcp:read')")
+    public List<DocumentSearchResult> searchDocuments(String query, Integer limit) {
+        return searchDocuments(query, limit, null, null, null, null, null, null, null, null);
+    }
+
     @McpTool(description = "Search documents by semantic similarity")
     @PreAuthorize("hasAuthority('SCOPE_mcp:read')")
     public List<DocumentSearchResult> searchDocuments(
             @McpToolParam(description = "Search query") String query,
-            @McpToolParam(description = "Max results", required = false) Integer limit) {
+            @McpToolParam(description = "Max results", required = false) Integer limit,
+            @McpToolParam(description = "Recall/latency profile: fast, balanced (default) or accurate", required = false) String profile,
+            @McpToolParam(description = "Minimum cosine similarity score (0-1) of returned chunks", required = false) Double minScore,
+            @McpToolParam(description = "Cursor of the last result already received, to fetch the next page", required = false) String cursor,
+            @McpToolParam(description = "Restrict the search to these document IDs", required = false) List<String> documentIds,
+            @McpToolParam(description = "semantic (default), hybrid: also matches exact terms such as codes, references or names, "
+                    + "or two_stage: first selects the closest documents, then searches their chunks", required = false) String mode,
+            @McpToolParam(description = "Only documents uploaded by this user", required = false) String uploadedBy,
+            @McpToolParam(description = "Only documents of this file type (pdf, txt, ...)", required = false) String fileType,
+            @McpToolParam(description = "Only documents having at least one of these tags", required = false) List<String> tags) {
 
         try {
             // 1. Vectoriser la requête
-            float[] queryVector = embeddingModel.embed(query);
+            float[] queryVector = queryEmbeddingCache.getOrEmbed(query, embeddingModel::embed);
 
-            // 2. Recherche sémantique
+            // 2. Recherche sémantique, reprise après le curseur éventuel
             int maxResults = limit != null ? limit : 5;
-            List<DocumentChunk> chunks = vectorRepo.semanticSearch(queryVector, maxResults);
-
-            // 3. Récupérer métadonnées
-            return chunks.stream().map(chunk -> {
-                DocumentMetadata meta = metadataRepo.findByDocumentId(chunk.getDocumentId())
-                        .orElseThrow(() -> new RuntimeException("Metadata not found for document: " + chunk.getDocumentId()));
-                return new DocumentSearchResult(
-                        meta.getTitle(),
-                        meta.getAuthor(),
-                        chunk.getContent(),
-                        meta.getTags(),
-                        meta.getUploadedAt()
-                );
-            }).collect(Collectors.toList());
+            SearchCursor after = cursor != null && !cursor.isBlank() ? SearchCursor.decode(cursor) : null;
+            Double maxDistance = minScore != null ? 1.0 - minScore : null;
+            SearchFilter filter = SearchFilter.of(documentIds, uploadedBy, fileType, tags);
+            // Plein texte et centroïdes de documents ne sont disponibles que dans PostgreSQL
+            SearchProfile searchProfile = SearchProfile.parse(profile);
+            List<DocumentChunk> chunks = switch (SearchMode.parse(mode)) {
+                case HYBRID -> vectorRepo.hybridSearch(queryVector, query, maxResults, searchProfile, filter, maxDistance, after);
+                case TWO_STAGE -> vectorRepo.twoStageSearch(queryVector, maxResults, searchProfile, filter, maxDistance, after);
+                case SEMANTIC -> searchBackend.search(queryVector, maxResults, searchProfile, filter, maxDistance, after);
+            };
+            int seen = after != null ? after.seen() : 0;
+
+            // 3. Récupérer métadonnées (une requête pour tous les documents)
+            Map<String, DocumentMetadataView> metadata = metadataCache.getAll(
+                    chunks.stream().map(DocumentChunk::getDocumentId).toList());
+            return toResults(chunks, metadata, seen);
         } catch (Exception e) {
             log.error("Error searching documents", e);
             throw new RuntimeException("Failed to search documents: " + e.getMessage(), e);
         }
     }
 
-    // Helpers
-    private String saveToMinIO(String docId, String filename, byte[] content) {
+    @McpTool(description = "Run several semantic searches in one call, for example the sub-questions of a task. "
+            + "Returns one group of results per query, in the same order")
+    @PreAuthorize("hasAuthority('SCOPE_mcp:read')")
+    public List<BatchSearchResult> searchDocumentsBatch(
+            @McpToolParam(description = "Search queries") List<String> queries,
+            @McpToolParam(description = "Max results per query", required = false) Integer limit,
+            @McpToolParam(description = "Recall/latency profile: fast, balanced (default) or accurate", required = false) String profile,
+            @McpToolParam(description = "Minimum cosine similarity score (0-1) of returned chunks", required = false) Double minScore,
+            @McpToolParam(description = "Restrict the search to these document IDs", required = false) List<String> documentIds,
+            @McpToolParam(description = "Only documents uploaded by this user", required = false) String uploadedBy,
+            @McpToolParam(description = "Only documents of this file type (pdf, txt, ...)", required = false) String fileType,
+            @McpToolParam(description = "Only documents having at least one of these tags", required = false) List<String> tags) {
+
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("At least one query is required");
+        }
+        if (queries.size() > maxBatchQueries) {
+            throw new IllegalArgumentException("Too many queries: " + queries.size() + " (max " + maxBatchQueries + ")");
+        }
         try {
-            String bucketName = "documents";
-            // Créer le bucket s'il n'existe pas
-            try {
-                if (!minioClient.bucketExists(BucketExistsArgs.builder()
-                        .bucket(bucketName).build())) {
-                    minioClient.makeBucket(MakeBucketArgs.builder()
-                            .bucket(bucketName).build());
-                    log.info("Bucket '{}' créé", bucketName);
-                }
-            } catch (Exception e) {
-                log.warn("Erreur lors de la vérification/création du bucket: {}", e.getMessage());
+            // 1. Une seule requête d'embedding pour toutes les questions absentes du cache
+            List<float[]> queryVectors = queryEmbeddingCache.getOrEmbedAll(queries, embeddingModel::embed);
+
+            // 2. Un seul aller-retour SQL pour toutes les recherches
+            int maxResults = limit != null ? limit : 5;
+            Double maxDistance = minScore != null ? 1.0 - minScore : null;
+            SearchFilter filter = SearchFilter.of(documentIds, uploadedBy, fileType, tags);
+            List<List<DocumentChunk>> chunksByQuery = searchBackend.searchBatch(queryVectors, maxResults,
+                    SearchProfile.parse(profile), filter, maxDistance);
+
+            // 3. Métadonnées résolues une fois pour l'ensemble des résultats
+            Map<String, DocumentMetadataView> metadata = metadataCache.getAll(chunksByQuery.stream()
+                    .flatMap(List::stream)
+                    .map(DocumentChunk::getDocumentId)
+                    .distinct()
+                    .toList());
+
+            List<BatchSearchResult> results = new ArrayList<>(queries.size());
+            for (int i = 0; i < queries.size(); i++) {
+                results.add(new BatchSearchResult(queries.get(i), toResults(chunksByQuery.get(i), metadata, 0)));
             }
-            
-            String objectPath = docId + "/" + filename;
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectPath)
-                            .stream(new ByteArrayInputStream(content), content.length, -1)
-                            .contentType("application/octet-stream")
-                            .build()
-            );
-            return "documents/" + objectPath;
+            return results;
         } catch (Exception e) {
-            log.error("MinIO upload failed", e);
-            throw new RuntimeException("MinIO upload failed: " + e.getMessage(), e);
+            log.error("Error searching documents", e);
+            throw new RuntimeException("Failed to search documents: " + e.getMessage(), e);
         }
     }
 
-    private String extractText(byte[] content, String filename) {
-        try {
-            String extension = getExtension(filename).toLowerCase();
-            if ("pdf".equals(extension)) {
-                try (PDDocument document = org.apache.pdfbox.Loader.loadPDF(content)) {
-                    PDFTextStripper stripper = new PDFTextStripper();
-                    return stripper.getText(document);
-                }
-            } else if ("txt".equals(extension)) {
-                return new String(content);
-            } else {
-                log.warn("Unsupported file type: {}, returning empty text", extension);
-                return "";
+    // Helpers
+    private List<DocumentSearchResult> toResults(List<DocumentChunk> chunks, Map<String, DocumentMetadataView> metadata,
+                                                 int seen) {
+        List<DocumentSearchResult> results = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            DocumentChunk chunk = chunks.get(i);
+            DocumentMetadataView meta = metadata.get(chunk.getDocumentId());
+            if (meta == null) {
+                log.warn("Metadata not found for document: {}", chunk.getDocumentId());
+                continue;
             }
-        } catch (Exception e) {
-            log.error("Error extracting text from file", e);
-            return "";
+            Double distance = chunk.getDistance();
+            SearchCursor position = new SearchCursor(distance != null ? distance : 0, chunk.getId(), seen + i + 1);
+            results.add(new DocumentSearchResult(
+                    meta.title(),
+                    meta.author(),
+                    chunk.getContent(),
+                    meta.tags(),
+                    meta.uploadedAt(),
+                    chunk.getDocumentId(),
+                    distance,
+                    distance != null ? 1.0 - distance : null,
+                    position.encode()
+            ));
         }
+        return results;
     }
 
-    private String getExtension(String filename) {
-        int lastDot = filename.lastIndexOf('.');
-        return lastDot > 0 ? filename.substring(lastDot + 1) : "";
+    private DocumentMetadataView saveMetadata(DocumentMetadata metadata) {
+        DocumentMetadata saved = metadataRepo.save(metadata);
+        metadataCache.invalidate(saved.getDocumentId());
+        return DocumentMetadataView.of(saved);
     }
 
-    private List<String> chunkText(String text, int chunkSize) {
-        List<String> chunks = new ArrayList<>();
-        String[] words = text.split("\\s+");
-        
-        StringBuilder chunk = new StringBuilder();
-        int wordCount = 0;
-        
-        for (String word : words) {
-            if (wordCount >= chunkSize) {
-                chunks.add(chunk.toString().trim());
-                chunk = new StringBuilder();
-                wordCount = 0;
-            }
-            chunk.append(word).append(" ");
-            wordCount++;
+    // Tags chargés avec l'entité : elle est utilisée hors transaction
+    private DocumentMetadata findMetadata(String documentId) {
+        return metadataRepo.findWithTagsByDocumentIdIn(List.of(documentId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown document: " + documentId));
+    }
+
+    private Optional<DocumentUploadResponse> findDuplicate(String contentHash) {
+        return deduplicator.findDuplicate(contentHash).map(existing -> {
+            log.info("Document identique déjà indexé: {}", existing.getDocumentId());
+            DocumentUploadResponse response = new DocumentUploadResponse();
+            response.setDocumentId(existing.getDocumentId());
+            response.setMessage(existing.isIndexed()
+                    ? "Document already uploaded"
+                    : "Document already uploaded, indexing in progress");
+            return response;
+        });
+    }
+
+    /**
+     * Document refusé par le pipeline saturé avant toute indexation : métadonnées et fichier
+     * stocké sont supprimés, pour qu'une nouvelle tentative ne soit pas dédupliquée sur lui.
+     */
+    private void discardRejected(String documentId) {
+        documentIndexer.release(documentId);
+        try {
+            documentStorage.delete(documentId);
+            metadataRepo.findByDocumentId(documentId).ifPresent(metadataRepo::delete);
+            metadataCache.invalidate(documentId);
+        } catch (Exception e) {
+            log.error("Impossible d'annuler l'upload du document {}", documentId, e);
         }
-        
-        if (chunk.length() > 0) {
-            chunks.add(chunk.toString().trim());
+    }
+
+    // Document enregistré mais pas entièrement indexé : chunks partiels supprimés, statut FAILED
+    private void failIndexing(String documentId) {
+        if (documentId == null) {
+            return;
+        }
+        try {
+            documentIndexer.fail(documentId);
+        } catch (Exception e) {
+            log.error("Impossible de marquer le document {} en échec", documentId, e);
+        }
+    }
+
+    private DocumentMetadata buildMetadata(String documentId, String filename, long fileSize,
+                                           String storagePath, String tags, String contentHash) {
+        return buildMetadata(documentId, filename, fileSize, storagePath, tags, contentHash, getCurrentUser());
+    }
+
+    // Partagé avec les imports en masse, exécutés hors du contexte de sécurité de la requête
+    static DocumentMetadata buildMetadata(String documentId, String filename, long fileSize, String storagePath,
+                                          String tags, String contentHash, String uploadedBy) {
+        DocumentMetadata metadata = new DocumentMetadata();
+        metadata.setDocumentId(documentId);
+        metadata.setTitle(filename);
+        metadata.setFileType(DocumentTextExtractor.getExtension(filename));
+        metadata.setFileSize(fileSize);
+        metadata.setStoragePath(storagePath);
+        metadata.setContentHash(contentHash);
+        metadata.setUploadedAt(LocalDateTime.now());
+        metadata.setUploadedBy(uploadedBy);
+        metadata.setIndexingStatus(DocumentMetadata.IndexingStatus.INDEXING);
+        metadata.setIndexingHeartbeat(LocalDateTime.now());
+        if (tags != null && !tags.isEmpty()) {
+            metadata.setTags(Arrays.asList(tags.split(",")));
+        } else {
+            metadata.setTags(new ArrayList<>());
         }
-        
-        return chunks.isEmpty() ? List.of(text) : chunks;
+        return metadata;
     }
 
     private String getCurrentUser() {
@@ -0,0 +1,62 @@
+package com.mcp.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regroupe les chunks en lots avant de les envoyer à l'{@link EmbeddingModel},
+ * au lieu d'un appel réseau par chunk. L'ordre des vecteurs retournés correspond
+ * toujours à l'ordre des textes en entrée.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingBatcher {
+
+    private final EmbeddingModel embeddingModel;
+
+    @Value("${spring.embedding.batch.max-size:64}")
+    private int maxBatchSize;
+
+    @Value("${spring.embedding.batch.max-tokens:8000}")
+    private int maxTokensPerRequest;
+
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        List<String> batch = new ArrayList<>();
+        int batchTokens = 0;
+
+        for (String text : texts) {
+            int tokens = TokenEstimator.count(text);
+            // Un chunk trop gros part seul plutôt que d'être refusé
+            if (!batch.isEmpty() && (batch.size() >= maxBatchSize || batchTokens + tokens > maxTokensPerRequest)) {
+                embeddings.addAll(embedBatch(batch));
+                batch = new ArrayList<>();
+                batchTokens = 0;
+            }
+            batch.add(text);
+            batchTokens += tokens;
+        }
+
+        if (!batch.isEmpty()) {
+            embeddings.addAll(embedBatch(batch));
+        }
+        return embeddings;
+    }
+
+    private List<float[]> embedBatch(List<String> batch) {
+        List<float[]> result = embeddingModel.embed(batch);
+        if (result.size() != batch.size()) {
+            throw new IllegalStateException("Embedding model returned " + result.size()
+                    + " vectors for " + batch.size() + " inputs");
+        }
+        log.debug("Batch de {} chunks vectorisé", batch.size());
+        return result;
+    }
+}
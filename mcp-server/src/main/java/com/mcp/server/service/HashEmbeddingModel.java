@@ -0,0 +1,99 @@
+package com.mcp.server.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embeddings déterministes calculés par hachage des mots et des paires de mots (feature
+ * hashing), sans modèle ni réseau. Destiné aux tests de charge et aux benchmarks hors ligne :
+ * le même texte donne toujours le même vecteur et des textes partageant des mots restent
+ * proches en similarité cosinus, mais la sémantique n'est pas captée.
+ */
+public class HashEmbeddingModel implements EmbeddingModel {
+
+    private static final float BIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashEmbeddingModel(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vector(texts.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText() != null ? document.getText() : "");
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    float[] vector(String text) {
+        float[] vector = new float[dimensions];
+        long previous = 0;
+        int i = 0;
+        while (i < text.length()) {
+            // Même découpage en mots que SimHash (FNV-1a, en minuscules)
+            long word = 0xcbf29ce484222325L;
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                word ^= Character.toLowerCase(text.charAt(i));
+                word *= 0x100000001b3L;
+                i++;
+            }
+            if (i == start) {
+                i++;
+                continue;
+            }
+            add(vector, SimHash.mix(word), 1f);
+            if (previous != 0) {
+                add(vector, SimHash.mix(previous ^ Long.rotateLeft(word, 29)), BIGRAM_WEIGHT);
+            }
+            previous = word;
+        }
+        return normalize(vector);
+    }
+
+    // Le hash choisit la dimension, son bit de poids fort le signe (limite les collisions additives)
+    private void add(float[] vector, long hash, float weight) {
+        int index = (int) Long.remainderUnsigned(hash, dimensions);
+        vector[index] += hash < 0 ? -weight : weight;
+    }
+
+    // Vecteur unitaire ; un texte sans mot reçoit un vecteur fixe (un vecteur nul n'a pas de cosinus)
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
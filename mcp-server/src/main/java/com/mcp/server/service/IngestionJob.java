@@ -0,0 +1,108 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * État d'avancement d'un document dans le pipeline d'ingestion asynchrone.
+ */
+@Getter
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED,     // en attente d'extraction
+        EXTRACTING, // texte en cours d'extraction, les premiers chunks sont déjà vectorisés
+        INDEXING,   // extraction terminée, derniers paquets en cours de vectorisation/insertion
+        COMPLETED,
+        FAILED
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final String documentId;
+    private final DocumentMetadataView document;
+    private final String filename;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int totalChunks;
+    private volatile int indexedChunks;
+    private volatile String error;
+    private volatile LocalDateTime updatedAt = createdAt;
+    private boolean completionClaimed;
+    // Terminé (COMPLETED ou FAILED), pour les appelants qui enchaînent sur la fin de l'indexation
+    private final CompletableFuture<IngestionJob> completion = new CompletableFuture<>();
+
+    public IngestionJob(DocumentMetadataView document, String filename) {
+        this.documentId = document.documentId();
+        this.document = document;
+        this.filename = filename;
+    }
+
+    void moveTo(Status status) {
+        this.status = status;
+        this.updatedAt = LocalDateTime.now();
+        if (isFinished()) {
+            completion.complete(this);
+        }
+    }
+
+    synchronized void sliceQueued(int chunks) {
+        totalChunks += chunks;
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Retourne true pour le seul appelant qui doit finaliser le document (voir completed())
+    synchronized boolean extractionFinished() {
+        if (status == Status.EXTRACTING) {
+            moveTo(Status.INDEXING);
+        }
+        return claimCompletion();
+    }
+
+    synchronized boolean sliceIndexed(int chunks) {
+        indexedChunks += chunks;
+        updatedAt = LocalDateTime.now();
+        return claimCompletion();
+    }
+
+    // Appelé une fois le document finalisé, après le dernier paquet inséré
+    synchronized void completed() {
+        if (status != Status.FAILED) {
+            moveTo(Status.COMPLETED);
+        }
+    }
+
+    /**
+     * Passe le job en FAILED sans le terminer : l'appelant nettoie le document puis appelle
+     * {@link #failureHandled()}. Retourne false si le job avait déjà échoué.
+     */
+    synchronized boolean failed(Throwable cause) {
+        if (status == Status.FAILED) {
+            return false;
+        }
+        this.error = cause.getMessage();
+        this.status = Status.FAILED;
+        this.updatedAt = LocalDateTime.now();
+        return true;
+    }
+
+    void failureHandled() {
+        completion.complete(this);
+    }
+
+    private boolean claimCompletion() {
+        if (status == Status.INDEXING && indexedChunks == totalChunks && !completionClaimed) {
+            completionClaimed = true;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
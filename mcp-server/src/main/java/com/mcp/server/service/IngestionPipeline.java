@@ -0,0 +1,279 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.DocumentChunk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline d'ingestion asynchrone : extraction/découpage, vectorisation et insertion
+ * tournent comme des stages indépendants sur des threads virtuels, reliés par des files
+ * bornées. Un stage saturé bloque le précédent, ce qui borne la mémoire consommée.
+ *
+ * <p>Le texte circule page par page et les chunks par paquets : un document n'est jamais
+ * présent en entier dans le pipeline, et ses premiers paquets sont vectorisés pendant que
+ * la suite est encore en cours d'extraction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionPipeline {
+
+    private final DocumentTextExtractor textExtractor;
+    private final TextChunker textChunker;
+    private final DocumentIndexer documentIndexer;
+
+    @Value("${spring.ingestion.pipeline.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${spring.ingestion.pipeline.extract-workers:2}")
+    private int extractWorkers;
+
+    @Value("${spring.ingestion.pipeline.embed-workers:2}")
+    private int embedWorkers;
+
+    @Value("${spring.ingestion.pipeline.insert-workers:1}")
+    private int insertWorkers;
+
+    @Value("${spring.ingestion.streaming.flush-size:64}")
+    private int sliceSize;
+
+    @Value("${spring.ingestion.pipeline.job-retention:PT1H}")
+    private Duration jobRetention;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private BlockingQueue<StageItem<TextSource>> extractQueue;
+    private BlockingQueue<StageItem<ChunkSlice>> embedQueue;
+    private BlockingQueue<StageItem<List<DocumentChunk>>> insertQueue;
+
+    private record StageItem<T>(IngestionJob job, T payload) {
+    }
+
+    private record ChunkSlice(int firstIndex, List<String> texts) {
+    }
+
+    @FunctionalInterface
+    private interface TextSource {
+        void emit(Consumer<CharSequence> pageSink) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface StageHandler<T> {
+        void handle(IngestionJob job, T payload) throws Exception;
+    }
+
+    @PostConstruct
+    public void start() {
+        extractQueue = new ArrayBlockingQueue<>(queueCapacity);
+        embedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        insertQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        startStage("extract", extractWorkers, extractQueue, this::extract);
+        startStage("embed", embedWorkers, embedQueue, this::embed);
+        startStage("insert", insertWorkers, insertQueue, this::insert);
+        log.info("Pipeline d'ingestion démarré (file={}, extract={}, embed={}, insert={})",
+                queueCapacity, extractWorkers, embedWorkers, insertWorkers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Met un document en file. Échoue immédiatement si le pipeline est saturé, pour ne
+     * jamais bloquer le thread de la requête MCP.
+     */
+    public IngestionJob submit(DocumentMetadataView document, String filename, byte[] content) {
+        return submit(document, filename, pageSink -> pageSink.accept(textExtractor.extractText(content, filename)));
+    }
+
+    // Le fichier est lu page par page puis supprimé
+    public IngestionJob submit(DocumentMetadataView document, String filename, Path file) {
+        return submit(document, filename, fileSource(file, filename));
+    }
+
+    private TextSource fileSource(Path file, String filename) {
+        return pageSink -> {
+            try {
+                textExtractor.extractPages(file, filename, pageSink);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+    }
+
+    /**
+     * Variante bloquante pour les imports en masse : attend une place dans la file
+     * d'extraction au lieu d'échouer, la saturation du pipeline ralentit alors l'import. Le
+     * job n'est pas enregistré pour getIngestionStatus : l'avancement est suivi par l'import.
+     */
+    public IngestionJob submitAndWait(DocumentMetadataView document, String filename, Path file)
+            throws InterruptedException {
+        IngestionJob job = new IngestionJob(document, filename);
+        extractQueue.put(new StageItem<>(job, fileSource(file, filename)));
+        return job;
+    }
+
+    private IngestionJob submit(DocumentMetadataView document, String filename, TextSource source) {
+        evictFinishedJobs();
+        IngestionJob job = new IngestionJob(document, filename);
+        if (!extractQueue.offer(new StageItem<>(job, source))) {
+            throw new IllegalStateException("Ingestion pipeline is saturated, retry later");
+        }
+        jobs.put(job.getJobId(), job);
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void extract(IngestionJob job, TextSource source) throws Exception {
+        job.moveTo(IngestionJob.Status.EXTRACTING);
+        SliceWriter slices = new SliceWriter(job);
+        TextChunker.ChunkWriter chunker = textChunker.open(slices);
+        source.emit(chunker::append);
+        chunker.finish();
+        slices.flush();
+        completeIfIndexed(job, job.extractionFinished());
+    }
+
+    private void embed(IngestionJob job, ChunkSlice slice) throws InterruptedException {
+        if (job.getStatus() == IngestionJob.Status.FAILED) {
+            return;
+        }
+        List<DocumentChunk> chunks = documentIndexer.embed(job.getDocument(), slice.firstIndex(), slice.texts());
+        insertQueue.put(new StageItem<>(job, chunks));
+    }
+
+    private void insert(IngestionJob job, List<DocumentChunk> chunks) {
+        if (job.getStatus() == IngestionJob.Status.FAILED) {
+            return;
+        }
+        documentIndexer.store(chunks);
+        if (job.getStatus() == IngestionJob.Status.FAILED) {
+            // Échec pendant l'insertion : le nettoyage a pu passer avant ce paquet
+            documentIndexer.delete(job.getDocumentId());
+            return;
+        }
+        completeIfIndexed(job, job.sliceIndexed(chunks.size()));
+    }
+
+    /**
+     * Le dernier paquet peut être inséré avant la fin de l'extraction (ou l'extraction ne
+     * produire aucun chunk) : la finalisation revient au stage qui termine en dernier, et le
+     * job ne passe COMPLETED qu'une fois l'embedding de niveau document calculé.
+     */
+    private void completeIfIndexed(IngestionJob job, boolean allIndexed) {
+        if (!allIndexed) {
+            return;
+        }
+        documentIndexer.complete(job.getDocumentId());
+        job.completed();
+        log.info("Document {} indexé ({} chunks, job {})", job.getDocumentId(), job.getIndexedChunks(), job.getJobId());
+    }
+
+    // Regroupe les chunks en paquets envoyés au stage de vectorisation
+    private class SliceWriter implements Consumer<String> {
+
+        private final IngestionJob job;
+        private List<String> pending = new ArrayList<>();
+        private int nextIndex;
+
+        private SliceWriter(IngestionJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void accept(String chunk) {
+            pending.add(chunk);
+            if (pending.size() >= sliceSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ChunkSlice slice = new ChunkSlice(nextIndex, pending);
+            nextIndex += pending.size();
+            pending = new ArrayList<>();
+            job.sliceQueued(slice.texts().size());
+            try {
+                embedQueue.put(new StageItem<>(job, slice));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ingestion interrupted", e);
+            }
+        }
+    }
+
+    private <T> void startStage(String name, int workers, BlockingQueue<StageItem<T>> queue, StageHandler<T> handler) {
+        for (int i = 0; i < workers; i++) {
+            executor.submit(() -> runStage(name, queue, handler));
+        }
+    }
+
+    private <T> void runStage(String name, BlockingQueue<StageItem<T>> queue, StageHandler<T> handler) {
+        while (!Thread.currentThread().isInterrupted()) {
+            StageItem<T> item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                handler.handle(item.job(), item.payload());
+            } catch (InterruptedException e) {
+                fail(item.job(), e);
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Stage '{}' failed for job {}", name, item.job().getJobId(), e);
+                fail(item.job(), e);
+            }
+        }
+    }
+
+    // Le premier stage en échec supprime les chunks déjà insérés et marque le document FAILED
+    private void fail(IngestionJob job, Exception cause) {
+        if (!job.failed(cause)) {
+            return;
+        }
+        try {
+            documentIndexer.fail(job.getDocumentId());
+        } catch (Exception e) {
+            log.error("Impossible de marquer le document {} en échec", job.getDocumentId(), e);
+        } finally {
+            job.failureHandled();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(threshold));
+    }
+}
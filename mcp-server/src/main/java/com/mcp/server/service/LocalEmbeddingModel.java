@@ -0,0 +1,86 @@
+package com.mcp.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exécute un modèle d'embeddings local (ONNX, dans le processus) sur un pool de threads
+ * dédié. L'inférence est du calcul CPU : elle ne doit ni occuper les threads porteurs des
+ * threads virtuels, ni dépasser le nombre de coeurs qui lui est réservé. Les grosses requêtes
+ * sont découpées en lots de {@code batchSize} textes, inférés en parallèle sur le pool.
+ */
+@Slf4j
+public class LocalEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final int batchSize;
+    private final ExecutorService inference;
+
+    public LocalEmbeddingModel(EmbeddingModel delegate, int threads, int batchSize) {
+        this.delegate = delegate;
+        this.batchSize = Math.max(1, batchSize);
+        this.inference = Executors.newFixedThreadPool(Math.max(1, threads),
+                Thread.ofPlatform().name("embedding-inference-", 0).daemon(true).factory());
+        log.info("Modèle d'embeddings local : {} threads d'inférence, lots de {}", threads, this.batchSize);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<Future<EmbeddingResponse>> batches = new ArrayList<>();
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<String> batch = texts.subList(from, Math.min(from + batchSize, texts.size()));
+            batches.add(inference.submit(() -> delegate.call(new EmbeddingRequest(batch, request.getOptions()))));
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (Future<EmbeddingResponse> batch : batches) {
+            for (Embedding embedding : await(batch).getResults()) {
+                embeddings.add(new Embedding(embedding.getOutput(), embeddings.size()));
+            }
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return await(inference.submit((Callable<float[]>) () -> delegate.embed(document)));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Embedding interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to compute local embeddings: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        inference.shutdownNow();
+    }
+}
@@ -0,0 +1,247 @@
+package com.mcp.server.service;
+
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkSignature;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index LSH en mémoire des empreintes {@link SimHash} des chunks canoniques (ceux qui ont
+ * leur propre embedding).
+ *
+ * <p>Les 64 bits sont découpés en {@code max-distance + 1} bandes : deux empreintes à
+ * distance de Hamming au plus {@code max-distance} ont forcément une bande identique, il
+ * suffit donc de comparer les entrées qui partagent une bande. Les empreintes et les ids sont
+ * stockés dans des tableaux de {@code long} ; chaque bande associe sa valeur aux positions
+ * des entrées. L'index est rechargé depuis {@code document_chunks} au démarrage ; une entrée
+ * supprimée est marquée (id négatif) et disparaît au rechargement suivant.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NearDuplicateIndex {
+
+    public enum Mode {
+        OFF,    // Pas de détection
+        LINK,   // Chunk conservé sans embedding, duplicate_of pointe vers le chunk canonique
+        SKIP    // Chunk non inséré
+    }
+
+    private final VectorRepository vectorRepo;
+
+    @Getter
+    @Value("${spring.ingestion.dedup.mode:link}")
+    private Mode mode;
+
+    @Value("${spring.ingestion.dedup.max-distance:5}")
+    private int maxDistance;
+
+    // En dessous, l'empreinte d'un texte n'est pas assez discriminante
+    @Value("${spring.ingestion.dedup.min-words:8}")
+    private int minWords;
+
+    @Value("${spring.ingestion.dedup.max-entries:2000000}")
+    private int maxEntries;
+
+    @Value("${spring.ingestion.dedup.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] signatures = new long[1024];
+    private long[] chunkIds = new long[1024];
+    private int size;
+    private int[] bandShifts;
+    private long[] bandMasks;
+    // Par bande : valeur de la bande -> positions des entrées (la case 0 contient leur nombre)
+    private List<Map<Long, int[]>> bands;
+    private boolean fullLogged;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            long lastId = 0;
+            List<ChunkSignature> batch;
+            while (size < maxEntries && !(batch = vectorRepo.findChunkSignaturesAfter(lastId, loadBatchSize)).isEmpty()) {
+                for (ChunkSignature chunk : batch) {
+                    add(chunk.id(), chunk.simhash());
+                }
+                lastId = batch.get(batch.size() - 1).id();
+            }
+            log.info("Index des quasi-doublons chargé ({} empreintes)", size);
+        } catch (RuntimeException e) {
+            log.warn("Chargement de l'index des quasi-doublons impossible: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public boolean isNearDuplicate(long a, long b) {
+        return SimHash.distance(a, b) <= maxDistance;
+    }
+
+    // Empreinte du texte, vide si la détection est désactivée ou le texte trop court
+    public OptionalLong signature(String text) {
+        if (!isEnabled() || SimHash.wordCount(text) < minWords) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(SimHash.of(text));
+    }
+
+    // Id du chunk canonique le plus proche à distance au plus max-distance
+    public OptionalLong find(long signature) {
+        return find(signature, Set.of());
+    }
+
+    // Idem en ignorant les chunks exclus (ceux qu'une réindexation va supprimer)
+    public OptionalLong find(long signature, Set<Long> excluded) {
+        lock.readLock().lock();
+        try {
+            if (bands == null) {
+                return OptionalLong.empty();
+            }
+            long best = 0;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int band = 0; band < bands.size(); band++) {
+                int[] bucket = bands.get(band).get(signature >>> bandShifts[band] & bandMasks[band]);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 1; i <= bucket[0]; i++) {
+                    if (chunkIds[bucket[i]] < 0 || excluded.contains(chunkIds[bucket[i]])) {
+                        continue;
+                    }
+                    int distance = SimHash.distance(signature, signatures[bucket[i]]);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = chunkIds[bucket[i]];
+                    }
+                }
+            }
+            return bestDistance <= maxDistance ? OptionalLong.of(best) : OptionalLong.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Enregistre un chunk canonique une fois inséré ; ignoré quand l'index est plein
+    public void add(long chunkId, long signature) {
+        lock.writeLock().lock();
+        try {
+            if (size >= maxEntries) {
+                if (!fullLogged) {
+                    log.warn("Index des quasi-doublons plein ({} empreintes), nouveaux chunks non indexés", maxEntries);
+                    fullLogged = true;
+                }
+                return;
+            }
+            if (bands == null) {
+                initBands();
+            }
+            if (size == signatures.length) {
+                signatures = Arrays.copyOf(signatures, size * 2);
+                chunkIds = Arrays.copyOf(chunkIds, size * 2);
+            }
+            signatures[size] = signature;
+            chunkIds[size] = chunkId;
+            for (int band = 0; band < bands.size(); band++) {
+                bands.get(band).merge(signature >>> bandShifts[band] & bandMasks[band], new int[]{1, size},
+                        (bucket, single) -> append(bucket, single[1]));
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chunk canonique supprimé : l'entrée est retrouvée par la première bande de son empreinte
+    public void remove(long chunkId, long signature) {
+        lock.writeLock().lock();
+        try {
+            if (bands == null) {
+                return;
+            }
+            int[] bucket = bands.get(0).get(signature >>> bandShifts[0] & bandMasks[0]);
+            if (bucket == null) {
+                return;
+            }
+            for (int i = 1; i <= bucket[0]; i++) {
+                if (chunkIds[bucket[i]] == chunkId) {
+                    chunkIds[bucket[i]] = -1;
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chunk canonique supprimé par une autre instance, empreinte inconnue : recherche linéaire (rare)
+    public void remove(long chunkId) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (chunkIds[i] == chunkId) {
+                    chunkIds[i] = -1;
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void initBands() {
+        int count = Math.min(maxDistance + 1, 64);
+        bandShifts = new int[count];
+        bandMasks = new long[count];
+        bands = new ArrayList<>(count);
+        int shift = 0;
+        for (int band = 0; band < count; band++) {
+            // Les bits restants sont répartis sur les premières bandes
+            int width = 64 / count + (band < 64 % count ? 1 : 0);
+            bandShifts[band] = shift;
+            bandMasks[band] = width == 64 ? -1L : (1L << width) - 1;
+            bands.add(new HashMap<>());
+            shift += width;
+        }
+    }
+
+    private static int[] append(int[] bucket, int position) {
+        int count = bucket[0];
+        if (count + 1 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[count + 1] = position;
+        bucket[0] = count + 1;
+        return bucket;
+    }
+}
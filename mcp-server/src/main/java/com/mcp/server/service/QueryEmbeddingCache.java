@@ -0,0 +1,222 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.EmbeddingModelSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache des embeddings de requêtes de recherche, sur deux niveaux :
+ * <ul>
+ *     <li>un LRU local borné en taille et en durée, qui stocke directement des {@code float[]} ;</li>
+ *     <li>optionnellement Redis, partagé entre toutes les répliques du mcp-server.</li>
+ * </ul>
+ * Les requêtes sont normalisées (casse, espaces) pour former la clé ; c'est la requête
+ * d'origine, casse comprise, qui est vectorisée lors d'un miss. Les clés Redis incluent
+ * l'identifiant du modèle : des répliques configurées avec un autre modèle ne partagent pas
+ * leurs vecteurs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryEmbeddingCache {
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final EmbeddingModelSettings modelSettings;
+
+    @Value("${spring.embedding.query-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${spring.embedding.query-cache.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${spring.embedding.query-cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${spring.embedding.query-cache.redis.key-prefix:mcp:query-embedding:}")
+    private String redisKeyPrefix;
+
+    private Map<String, CachedVector> local;
+    private StringRedisTemplate redis;
+    private String redisModelPrefix;
+
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+
+    private record CachedVector(float[] vector, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        local = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedVector> eldest) {
+                return size() > maxSize;
+            }
+        };
+        redis = redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+        redisModelPrefix = redisKeyPrefix + modelSettings.getModelId() + ":";
+
+        localHits = meterRegistry.counter("mcp.query.embedding.cache", "result", "hit", "tier", "local");
+        redisHits = meterRegistry.counter("mcp.query.embedding.cache", "result", "hit", "tier", "redis");
+        misses = meterRegistry.counter("mcp.query.embedding.cache", "result", "miss", "tier", "none");
+        Gauge.builder("mcp.query.embedding.cache.size", this, QueryEmbeddingCache::localSize)
+                .register(meterRegistry);
+        log.info("Cache des embeddings de requêtes : {} entrées, TTL {}, Redis {}",
+                maxSize, ttl, redis != null ? "activé" : "désactivé");
+    }
+
+    public float[] getOrEmbed(String query, Function<String, float[]> embedder) {
+        String key = normalize(query);
+
+        float[] vector = getLocal(key);
+        if (vector != null) {
+            localHits.increment();
+            return vector;
+        }
+
+        vector = getRemote(key);
+        if (vector != null) {
+            redisHits.increment();
+            putLocal(key, vector);
+            return vector;
+        }
+
+        misses.increment();
+        vector = embedder.apply(query);
+        putLocal(key, vector);
+        putRemote(key, vector);
+        return vector;
+    }
+
+    /**
+     * Variante groupée : les requêtes absentes des deux niveaux sont vectorisées en un seul
+     * appel à {@code embedder}. Les vecteurs sont renvoyés dans l'ordre des requêtes.
+     */
+    public List<float[]> getOrEmbedAll(List<String> queries, Function<List<String>, List<float[]>> embedder) {
+        Map<String, float[]> resolved = new HashMap<>();
+        // Clé normalisée -> première requête d'origine, seule envoyée au modèle
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String query : queries) {
+            String key = normalize(query);
+            if (resolved.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            float[] vector = getLocal(key);
+            if (vector != null) {
+                localHits.increment();
+            } else if ((vector = getRemote(key)) != null) {
+                redisHits.increment();
+                putLocal(key, vector);
+            }
+            if (vector != null) {
+                resolved.put(key, vector);
+            } else {
+                missing.put(key, query);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.increment(missing.size());
+            List<float[]> vectors = embedder.apply(new ArrayList<>(missing.values()));
+            if (vectors.size() != missing.size()) {
+                throw new IllegalStateException("Embedding model returned " + vectors.size()
+                        + " vectors for " + missing.size() + " inputs");
+            }
+            int i = 0;
+            for (String key : missing.keySet()) {
+                float[] vector = vectors.get(i++);
+                resolved.put(key, vector);
+                putLocal(key, vector);
+                putRemote(key, vector);
+            }
+        }
+        return queries.stream().map(query -> resolved.get(normalize(query))).toList();
+    }
+
+    static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized float[] getLocal(String key) {
+        CachedVector cached = local.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            local.remove(key);
+            return null;
+        }
+        return cached.vector();
+    }
+
+    private synchronized void putLocal(String key, float[] vector) {
+        local.put(key, new CachedVector(vector, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    private synchronized int localSize() {
+        return local.size();
+    }
+
+    // Redis est un accélérateur : une erreur est traitée comme un miss
+    private float[] getRemote(String key) {
+        if (redis == null) {
+            return null;
+        }
+        try {
+            String value = redis.opsForValue().get(redisKey(key));
+            return value != null ? decode(value) : null;
+        } catch (Exception e) {
+            log.debug("Lecture Redis impossible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String key, float[] vector) {
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.opsForValue().set(redisKey(key), encode(vector), ttl);
+        } catch (Exception e) {
+            log.debug("Écriture Redis impossible: {}", e.getMessage());
+        }
+    }
+
+    private String redisKey(String key) {
+        return redisModelPrefix + ContentHash.sha256(key);
+    }
+
+    static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value));
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mcp.server.service;
+
+/**
+ * Empreintes SimHash 64 bits des chunks, pour détecter les quasi-doublons (en-têtes, pieds de
+ * page, mentions légales) : deux textes presque identiques ont des empreintes à faible
+ * distance de Hamming. Les traits sont les triplets de mots consécutifs, en minuscules.
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    public static long of(String text) {
+        int[] weights = new int[64];
+        long previous = 0;
+        long beforePrevious = 0;
+        int words = 0;
+        int i = 0;
+        while (i < text.length()) {
+            // Hash FNV-1a du mot courant, calculé sans allouer de chaîne
+            long word = 0xcbf29ce484222325L;
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                word ^= Character.toLowerCase(text.charAt(i));
+                word *= 0x100000001b3L;
+                i++;
+            }
+            if (i == start) {
+                i++;
+                continue;
+            }
+            words++;
+            if (words >= 3) {
+                accumulate(weights, mix(beforePrevious ^ Long.rotateLeft(previous, 21) ^ Long.rotateLeft(word, 42)));
+            }
+            beforePrevious = previous;
+            previous = word;
+        }
+        // Texte trop court pour former un triplet : les mots servent de traits
+        if (words == 1) {
+            accumulate(weights, mix(previous));
+        } else if (words == 2) {
+            accumulate(weights, mix(beforePrevious));
+            accumulate(weights, mix(previous));
+        }
+
+        long signature = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return signature;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static int wordCount(String text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean letter = Character.isLetterOrDigit(text.charAt(i));
+            if (letter && !inWord) {
+                words++;
+            }
+            inWord = letter;
+        }
+        return words;
+    }
+
+    private static void accumulate(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += (hash >>> bit & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    // Finaliseur de MurmurHash3 : répartit les bits des traits proches
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mcp.server.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Découpage du texte extrait en chunks à vectoriser. L'implémentation est choisie par
+ * {@code spring.ingestion.chunker.type} : {@code token} (budget en tokens, recouvrement,
+ * coupure sur les fins de paragraphe/phrase) ou {@code word} (taille fixe en mots).
+ */
+public interface TextChunker {
+
+    /**
+     * Ouvre un découpage en flux : le texte est fourni par morceaux via
+     * {@link ChunkWriter#append(CharSequence)} et chaque chunk complet est transmis à {@code sink}.
+     */
+    ChunkWriter open(Consumer<String> sink);
+
+    default List<String> chunk(CharSequence text) {
+        List<String> chunks = new ArrayList<>();
+        ChunkWriter writer = open(chunks::add);
+        writer.append(text);
+        writer.finish();
+        return chunks;
+    }
+
+    interface ChunkWriter {
+
+        // Le texte reçu n'est pas conservé : l'appelant peut réutiliser son buffer
+        void append(CharSequence text);
+
+        void finish();
+    }
+}
@@ -0,0 +1,31 @@
+package com.mcp.server.service;
+
+/**
+ * Estimation du nombre de tokens sans tokenizer : chaque suite de lettres/chiffres compte
+ * un token par tranche de 4 caractères, chaque signe de ponctuation compte un token.
+ * Proche de cl100k_base sur du texte courant, légèrement pessimiste sur du texte technique.
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int count(CharSequence text) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (run++ % 4 == 0) {
+                    tokens++;
+                }
+            } else {
+                run = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+}
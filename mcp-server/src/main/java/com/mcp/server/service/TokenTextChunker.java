@@ -0,0 +1,209 @@
+package com.mcp.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Découpage par budget de tokens avec recouvrement entre chunks consécutifs.
+ *
+ * <p>Le texte est parcouru caractère par caractère sur des offsets, sans créer de chaîne par
+ * mot : seul le chunk émis est alloué. Quand le budget est dépassé, la coupure se fait de
+ * préférence sur une fin de paragraphe, sinon de phrase, sinon de mot, à condition que le
+ * chunk contienne au moins la moitié du budget. Le chunk suivant reprend les derniers
+ * {@code overlap-tokens} tokens du précédent.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.ingestion.chunker.type", havingValue = "token", matchIfMissing = true)
+public class TokenTextChunker implements TextChunker {
+
+    private final int maxTokens;
+    private final int minTokens;
+    private final int overlapTokens;
+
+    public TokenTextChunker(@Value("${spring.ingestion.chunker.max-tokens:512}") int maxTokens,
+                            @Value("${spring.ingestion.chunker.overlap-tokens:64}") int overlapTokens) {
+        this.maxTokens = maxTokens;
+        this.minTokens = maxTokens / 2;
+        // Un recouvrement plus grand empêcherait le chunk suivant de progresser
+        this.overlapTokens = Math.min(overlapTokens, maxTokens / 4);
+    }
+
+    @Override
+    public ChunkWriter open(Consumer<String> sink) {
+        return new TokenChunkWriter(sink);
+    }
+
+    private class TokenChunkWriter implements ChunkWriter {
+
+        private final Consumer<String> sink;
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int tokens;
+        private int run;
+        private int newlines;
+        private char lastNonSpace;
+        // Début du contenu pas encore émis (ce qui précède est le recouvrement)
+        private int pendingStart;
+
+        // Coupures candidates : offset dans le buffer et nombre de tokens avant cet offset
+        private int paragraphOffset = -1;
+        private int paragraphTokens;
+        private int sentenceOffset = -1;
+        private int sentenceTokens;
+        private int wordOffset = -1;
+        private int wordTokens;
+
+        // Débuts de mots, pour positionner le recouvrement
+        private int[] wordStarts = new int[256];
+        private int[] wordStartTokens = new int[256];
+        private int wordCount;
+
+        private TokenChunkWriter(Consumer<String> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void append(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                buffer.append(text.charAt(i));
+                observe(buffer.length() - 1);
+                if (tokens > maxTokens) {
+                    cut();
+                }
+            }
+        }
+
+        @Override
+        public void finish() {
+            for (int i = pendingStart; i < buffer.length(); i++) {
+                if (!Character.isWhitespace(buffer.charAt(i))) {
+                    emit(buffer.length());
+                    break;
+                }
+            }
+            buffer.setLength(0);
+            rescan();
+            pendingStart = 0;
+        }
+
+        private void observe(int offset) {
+            char c = buffer.charAt(offset);
+            if (Character.isWhitespace(c)) {
+                if (run > 0 || (offset > 0 && !Character.isWhitespace(buffer.charAt(offset - 1)))) {
+                    wordOffset = offset;
+                    wordTokens = tokens;
+                    if (lastNonSpace == '.' || lastNonSpace == '!' || lastNonSpace == '?') {
+                        sentenceOffset = offset;
+                        sentenceTokens = tokens;
+                    }
+                }
+                run = 0;
+                if (c == '\n' && ++newlines >= 2) {
+                    paragraphOffset = offset;
+                    paragraphTokens = tokens;
+                }
+                return;
+            }
+
+            if (offset == 0 || Character.isWhitespace(buffer.charAt(offset - 1))) {
+                recordWordStart(offset);
+            }
+            newlines = 0;
+            lastNonSpace = c;
+            if (Character.isLetterOrDigit(c)) {
+                if (run++ % 4 == 0) {
+                    tokens++;
+                }
+            } else {
+                run = 0;
+                tokens++;
+            }
+        }
+
+        private void cut() {
+            int cutAt;
+            int cutTokens;
+            // Le recouvrement commence après ce début de mot, pour que le buffer diminue à chaque coupure
+            int overlapFloor = 0;
+            if (isCandidate(paragraphOffset, paragraphTokens)) {
+                cutAt = paragraphOffset;
+                cutTokens = paragraphTokens;
+            } else if (isCandidate(sentenceOffset, sentenceTokens)) {
+                cutAt = sentenceOffset;
+                cutTokens = sentenceTokens;
+            } else if (isCandidate(wordOffset, wordTokens)) {
+                cutAt = wordOffset;
+                cutTokens = wordTokens;
+            } else {
+                // Pas de séparateur exploitable (mot démesuré, texte sans espaces) : coupure franche
+                // avant le caractère en trop, sans recouvrement dans le mot coupé
+                cutAt = Math.max(buffer.length() - 1, pendingStart + 1);
+                cutTokens = tokens - 1;
+                overlapFloor = wordCount > 0 ? wordStarts[wordCount - 1] : cutAt;
+            }
+            emit(cutAt);
+
+            int keepFrom = cutAt;
+            if (overlapTokens > 0) {
+                for (int i = wordCount - 1; i >= 0; i--) {
+                    if (wordStarts[i] > overlapFloor && wordStarts[i] < cutAt
+                            && cutTokens - wordStartTokens[i] >= overlapTokens) {
+                        keepFrom = wordStarts[i];
+                        break;
+                    }
+                }
+            }
+            buffer.delete(0, keepFrom);
+            pendingStart = cutAt - keepFrom;
+            rescan();
+        }
+
+        // Seules les coupures après le contenu déjà émis font progresser le découpage
+        private boolean isCandidate(int offset, int offsetTokens) {
+            return offset > pendingStart && offsetTokens >= minTokens;
+        }
+
+        // Reconstruit l'état sur le reste du buffer (recouvrement + texte déjà reçu après la coupure)
+        private void rescan() {
+            tokens = 0;
+            run = 0;
+            newlines = 0;
+            lastNonSpace = 0;
+            paragraphOffset = -1;
+            sentenceOffset = -1;
+            wordOffset = -1;
+            wordCount = 0;
+            for (int i = 0; i < buffer.length(); i++) {
+                observe(i);
+            }
+        }
+
+        private void recordWordStart(int offset) {
+            if (wordCount == wordStarts.length) {
+                wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+                wordStartTokens = Arrays.copyOf(wordStartTokens, wordCount * 2);
+            }
+            wordStarts[wordCount] = offset;
+            wordStartTokens[wordCount] = tokens;
+            wordCount++;
+        }
+
+        private void emit(int end) {
+            int from = 0;
+            int to = end;
+            while (from < to && Character.isWhitespace(buffer.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(buffer.charAt(to - 1))) {
+                to--;
+            }
+            if (from < to) {
+                sink.accept(buffer.substring(from, to));
+            }
+        }
+    }
+}
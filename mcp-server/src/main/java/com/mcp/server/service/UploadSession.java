@@ -0,0 +1,66 @@
+package com.mcp.server.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Upload en plusieurs parts : chaque part décodée est ajoutée au fichier de débordement,
+ * le contenu complet n'est jamais chargé en mémoire.
+ */
+@Getter
+public class UploadSession {
+
+    private final String uploadId = UUID.randomUUID().toString();
+    private final String filename;
+    private final String tags;
+    private final String owner;
+    private final Path spillFile;
+    @Getter(AccessLevel.NONE)
+    private final FileChannel channel;
+    @Getter(AccessLevel.NONE)
+    private final MessageDigest digest = ContentHash.newDigest();
+
+    private int nextPart;
+    private long bytesWritten;
+    private String contentHash; // calculée au fil des parts, disponible après close()
+    private volatile LocalDateTime lastActivity = LocalDateTime.now();
+
+    UploadSession(String filename, String tags, String owner, Path spillFile) throws IOException {
+        this.filename = filename;
+        this.tags = tags;
+        this.owner = owner;
+        this.spillFile = spillFile;
+        this.channel = FileChannel.open(spillFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    synchronized void append(int partNumber, byte[] data) throws IOException {
+        if (partNumber != nextPart) {
+            throw new IllegalArgumentException("Expected part " + nextPart + " but received " + partNumber);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        digest.update(data);
+        nextPart++;
+        bytesWritten += data.length;
+        lastActivity = LocalDateTime.now();
+    }
+
+    synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+            contentHash = ContentHash.toHex(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.IndexType;
+import com.mcp.server.dto.VectorIndexStats;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkTableStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintenance périodique de l'index vectoriel de {@code document_chunks}.
+ *
+ * <p>À chaque passage : {@code ANALYZE} si une part significative de la table a changé depuis
+ * le dernier (ingestions en masse), reconstruction {@code CONCURRENTLY} d'un index qui ne
+ * correspond plus à la configuration ou d'un index IVFFlat dont {@code lists} s'écarte trop de
+ * {@code sqrt(lignes)}, et {@code VACUUM} quand les tuples morts dépassent le seuil (un
+ * {@code REINDEX} ne les récupère pas). Un verrou consultatif PostgreSQL garantit qu'une seule
+ * instance maintient l'index à la fois. Le dernier bilan est exposé sur
+ * {@code /actuator/vectorindex}.
+ */
+@Component
+@Endpoint(id = "vectorindex")
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexMaintenance {
+
+    private static final String TEMP_INDEX_NAME = VectorIndexSettings.INDEX_NAME + "_rebuild";
+
+    // Clé du verrou consultatif partagé par toutes les instances
+    private static final long MAINTENANCE_LOCK_KEY = 0x6d63705f76656374L;
+
+    private final VectorRepository vectorRepo;
+    private final VectorIndexSettings indexSettings;
+
+    @Value("${spring.vector.maintenance.enabled:true}")
+    private boolean enabled;
+
+    // Part de lignes modifiées depuis le dernier ANALYZE qui déclenche un nouvel ANALYZE
+    @Value("${spring.vector.maintenance.analyze-threshold:0.1}")
+    private double analyzeThreshold;
+
+    // Écart relatif toléré entre lists et sqrt(lignes)
+    @Value("${spring.vector.maintenance.lists-drift-threshold:0.5}")
+    private double listsDriftThreshold;
+
+    @Value("${spring.vector.maintenance.dead-tuple-threshold:0.2}")
+    private double deadTupleThreshold;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile VectorIndexStats lastRun;
+
+    @Scheduled(initialDelayString = "${spring.vector.maintenance.initial-delay:PT1M}",
+            fixedDelayString = "${spring.vector.maintenance.interval:PT15M}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    @ReadOperation
+    public VectorIndexStats lastRun() {
+        return lastRun;
+    }
+
+    public VectorIndexStats run() {
+        if (!running.compareAndSet(false, true)) {
+            return lastRun;
+        }
+        long start = System.currentTimeMillis();
+        Pass pass = new Pass();
+        String error = null;
+        try {
+            if (!vectorRepo.withAdvisoryLock(MAINTENANCE_LOCK_KEY, () -> maintain(pass))) {
+                log.debug("Maintenance de l'index vectoriel en cours sur une autre instance");
+                return lastRun;
+            }
+        } catch (RuntimeException e) {
+            log.error("Maintenance de l'index vectoriel échouée", e);
+            error = e.getMessage();
+        } finally {
+            running.set(false);
+        }
+
+        lastRun = new VectorIndexStats(LocalDateTime.now(), System.currentTimeMillis() - start,
+                indexSettings.getIndexType().name(), pass.stats.liveRows(), pass.stats.deadRows(),
+                pass.stats.modifiedSinceAnalyze(), pass.currentLists, pass.targetLists, pass.actions, error);
+        if (!pass.actions.isEmpty()) {
+            log.info("Maintenance de l'index vectoriel: {} ({} ms)", pass.actions, lastRun.durationMs());
+        }
+        return lastRun;
+    }
+
+    private void maintain(Pass pass) {
+        ChunkTableStats stats = vectorRepo.tableStats();
+        pass.stats = stats;
+        if (deadRatio(stats) > deadTupleThreshold) {
+            // Autovacuum en retard : VACUUM libère aussi les entrées mortes de l'index, et analyse
+            vectorRepo.vacuumAnalyze();
+            pass.actions.add("vacuum");
+        } else if (stats.modifiedSinceAnalyze() > Math.max(1, stats.liveRows() * analyzeThreshold)) {
+            vectorRepo.analyze();
+            pass.actions.add("analyze");
+        }
+
+        IndexType type = indexSettings.getIndexType();
+        if (type == IndexType.NONE) {
+            return;
+        }
+        Optional<String> definition = vectorRepo.findIndexDefinition(VectorIndexSettings.INDEX_NAME);
+        if (type == IndexType.IVFFLAT) {
+            pass.targetLists = indexSettings.targetLists(stats.liveRows());
+            pass.currentLists = definition.map(VectorIndexSettings::parseLists).filter(lists -> lists > 0).orElse(null);
+        }
+
+        if (definition.isEmpty()) {
+            // Index IVFFlat différé au démarrage faute de données
+            if (type == IndexType.HNSW || stats.liveRows() > 0) {
+                rebuild(pass.targetLists);
+                pass.actions.add("create");
+            }
+        } else if (!indexSettings.matchesConfiguration(definition.get())) {
+            // Type, stockage ou paramètres modifiés : l'ancien index a été conservé au démarrage
+            rebuild(pass.targetLists);
+            pass.actions.add("rebuild " + type.name().toLowerCase());
+            pass.currentLists = pass.targetLists;
+        } else if (pass.currentLists != null && listsDrift(pass.currentLists, pass.targetLists) > listsDriftThreshold) {
+            rebuild(pass.targetLists);
+            pass.actions.add("rebuild lists " + pass.currentLists + " -> " + pass.targetLists);
+            pass.currentLists = pass.targetLists;
+        }
+    }
+
+    private void rebuild(Integer lists) {
+        vectorRepo.replaceIndexConcurrently(VectorIndexSettings.INDEX_NAME,
+                indexSettings.createIndexConcurrentlySql(TEMP_INDEX_NAME, lists == null ? 0 : lists),
+                TEMP_INDEX_NAME);
+    }
+
+    private static double listsDrift(int current, int target) {
+        return Math.abs(current - target) / (double) target;
+    }
+
+    private static double deadRatio(ChunkTableStats stats) {
+        long total = stats.liveRows() + stats.deadRows();
+        return total == 0 ? 0 : stats.deadRows() / (double) total;
+    }
+
+    // Bilan d'un passage, rempli sous le verrou
+    private static final class Pass {
+        private ChunkTableStats stats = new ChunkTableStats(0, 0, 0);
+        private Integer currentLists;
+        private Integer targetLists;
+        private final List<String> actions = new ArrayList<>();
+    }
+}
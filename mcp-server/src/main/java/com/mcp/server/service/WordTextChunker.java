@@ -0,0 +1,79 @@
+package com.mcp.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Découpage historique en chunks de taille fixe (en mots), sans recouvrement.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.ingestion.chunker.type", havingValue = "word")
+public class WordTextChunker implements TextChunker {
+
+    private final int chunkSize;
+
+    public WordTextChunker(@Value("${spring.ingestion.chunk-size:1000}") int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public ChunkWriter open(Consumer<String> sink) {
+        return new WordChunkWriter(sink);
+    }
+
+    private class WordChunkWriter implements ChunkWriter {
+
+        private final Consumer<String> sink;
+        private final StringBuilder chunk = new StringBuilder();
+        private int wordCount;
+        private boolean inWord;
+
+        private WordChunkWriter(Consumer<String> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void append(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    endWord();
+                } else {
+                    if (!inWord) {
+                        if (chunk.length() > 0) {
+                            chunk.append(' ');
+                        }
+                        inWord = true;
+                    }
+                    chunk.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void finish() {
+            endWord();
+            flush();
+        }
+
+        private void endWord() {
+            if (inWord) {
+                inWord = false;
+                if (++wordCount >= chunkSize) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            if (chunk.length() > 0) {
+                sink.accept(chunk.toString());
+                chunk.setLength(0);
+            }
+            wordCount = 0;
+        }
+    }
+}
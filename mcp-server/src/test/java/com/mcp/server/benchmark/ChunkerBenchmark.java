@@ -0,0 +1,99 @@
+package com.mcp.server.benchmark;
+
+import com.mcp.server.service.TokenTextChunker;
+import com.mcp.server.service.WordTextChunker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare l'ancien découpage ({@code split("\\s+")} + {@link StringBuilder}) aux chunkers
+ * en flux. Lancement : exécuter {@link #main(String[])} depuis l'IDE ou
+ * {@code mvn -pl mcp-server test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mcp.server.benchmark.ChunkerBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkerBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int words;
+
+    private String text;
+    private WordTextChunker wordChunker;
+    private TokenTextChunker tokenChunker;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            builder.append("word").append(random.nextInt(10_000));
+            builder.append(i % 15 == 14 ? ". " : " ");
+            if (i % 200 == 199) {
+                builder.append("\n\n");
+            }
+        }
+        text = builder.toString();
+        wordChunker = new WordTextChunker(1000);
+        tokenChunker = new TokenTextChunker(512, 64);
+    }
+
+    @Benchmark
+    public void legacySplit(Blackhole blackhole) {
+        blackhole.consume(legacyChunkText(text, 1000));
+    }
+
+    @Benchmark
+    public void wordChunker(Blackhole blackhole) {
+        blackhole.consume(wordChunker.chunk(text));
+    }
+
+    @Benchmark
+    public void tokenChunker(Blackhole blackhole) {
+        blackhole.consume(tokenChunker.chunk(text));
+    }
+
+    // Implémentation d'origine de DocumentTools.chunkText, conservée comme référence
+    private static List<String> legacyChunkText(String text, int chunkSize) {
+        List<String> chunks = new ArrayList<>();
+        String[] words = text.split("\\s+");
+
+        StringBuilder chunk = new StringBuilder();
+        int wordCount = 0;
+
+        for (String word : words) {
+            if (wordCount >= chunkSize) {
+                chunks.add(chunk.toString().trim());
+                chunk = new StringBuilder();
+                wordCount = 0;
+            }
+            chunk.append(word).append(" ");
+            wordCount++;
+        }
+
+        if (chunk.length() > 0) {
+            chunks.add(chunk.toString().trim());
+        }
+
+        return chunks.isEmpty() ? List.of(text) : chunks;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChunkerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
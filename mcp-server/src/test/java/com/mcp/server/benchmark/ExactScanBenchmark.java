@@ -0,0 +1,83 @@
+package com.mcp.server.benchmark;
+
+import com.mcp.server.index.ExactVectorScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 exact en dimension 1536 : {@link ExactVectorScanner} (SIMD, parallèle au-delà de
+ * 16k vecteurs) face à une boucle scalaire mono-thread. La comparaison avec pgvector est
+ * dans {@link PgVectorScanBenchmark}. 1M vecteurs occupent 6 Go, d'où le {@code -Xmx8g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ExactScanBenchmark {
+
+    static final int DIMENSIONS = 1536;
+
+    @Param({"10000", "100000", "1000000"})
+    private int vectors;
+
+    private ExactVectorScanner scanner;
+    private float[] arena;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        scanner = new ExactVectorScanner(DIMENSIONS, vectors, ExactVectorScanner.Metric.COSINE);
+        arena = new float[vectors * DIMENSIONS];
+        for (int i = 0; i < vectors; i++) {
+            float[] vector = randomVector(random);
+            scanner.add(i, vector);
+            System.arraycopy(vector, 0, arena, i * DIMENSIONS, DIMENSIONS);
+        }
+        query = randomVector(random);
+    }
+
+    @Benchmark
+    public void simdScan(Blackhole blackhole) {
+        blackhole.consume(scanner.topK(query, 10, null));
+    }
+
+    @Benchmark
+    public void scalarScan(Blackhole blackhole) {
+        float queryNorm = (float) Math.sqrt(ExactVectorScanner.dotScalar(query, 0, query, 0, DIMENSIONS));
+        PriorityQueue<float[]> heap = new PriorityQueue<>((a, b) -> Float.compare(b[0], a[0]));
+        for (int i = 0; i < vectors; i++) {
+            int offset = i * DIMENSIONS;
+            float norm = (float) Math.sqrt(ExactVectorScanner.dotScalar(arena, offset, arena, offset, DIMENSIONS));
+            float distance = 1 - ExactVectorScanner.dotScalar(arena, offset, query, 0, DIMENSIONS) / (norm * queryNorm);
+            heap.add(new float[]{distance, i});
+            if (heap.size() > 10) {
+                heap.poll();
+            }
+        }
+        blackhole.consume(heap);
+    }
+
+    static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExactScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
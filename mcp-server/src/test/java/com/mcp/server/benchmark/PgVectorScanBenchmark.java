@@ -0,0 +1,113 @@
+package com.mcp.server.benchmark;
+
+import com.mcp.server.index.ExactVectorScanner;
+import com.pgvector.PGvector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Même top-10 exact que {@link ExactScanBenchmark}, calculé par pgvector (parcours séquentiel,
+ * sans index) sur une table temporaire remplie avec les mêmes vecteurs, face au parcours en
+ * mémoire précédé du rapatriement des vecteurs (ce que paie une recherche filtrée exacte).
+ * Nécessite la base vectorielle du docker-compose, ou {@code -Dbenchmark.vector.url/user/password}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class PgVectorScanBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int vectors;
+
+    private Connection connection;
+    private PreparedStatement search;
+    private PreparedStatement fetch;
+    private float[] query;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.vector.url", "jdbc:postgresql://localhost:5433/vectordb"),
+                System.getProperty("benchmark.vector.user", "vector"),
+                System.getProperty("benchmark.vector.password", "vectorpass"));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE benchmark_vectors (id BIGINT, embedding vector("
+                    + ExactScanBenchmark.DIMENSIONS + "))");
+        }
+
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO benchmark_vectors (id, embedding) VALUES (?, ?)")) {
+            for (int i = 0; i < vectors; i++) {
+                insert.setLong(1, i);
+                insert.setObject(2, new PGvector(ExactScanBenchmark.randomVector(random)));
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ANALYZE benchmark_vectors");
+        }
+
+        query = ExactScanBenchmark.randomVector(random);
+        search = connection.prepareStatement(
+                "SELECT id, embedding <=> ? AS distance FROM benchmark_vectors ORDER BY distance LIMIT 10");
+        search.setObject(1, new PGvector(query));
+        fetch = connection.prepareStatement("SELECT id, embedding::text AS embedding FROM benchmark_vectors");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void pgvectorScan(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = search.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+            }
+        }
+    }
+
+    @Benchmark
+    public void fetchAndScan(Blackhole blackhole) throws SQLException {
+        ExactVectorScanner scanner = new ExactVectorScanner(ExactScanBenchmark.DIMENSIONS, vectors,
+                ExactVectorScanner.Metric.COSINE);
+        try (ResultSet rs = fetch.executeQuery()) {
+            while (rs.next()) {
+                PGvector vector = new PGvector();
+                vector.setValue(rs.getString(2));
+                scanner.add(rs.getLong(1), vector.toArray());
+            }
+        }
+        blackhole.consume(scanner.topK(query, 10, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PgVectorScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
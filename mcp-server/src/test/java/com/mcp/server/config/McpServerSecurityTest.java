@@ -2,23 +2,39 @@ package com.mcp.server.config;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class McpServerSecurityTest {
 
     @Autowired
     private McpServerSecurity mcpServerSecurity;
 
+    @Autowired
+    private MockMvc mockMvc;
+
     @Test
     void testSecurityConfiguration() throws Exception {
         assertNotNull(mcpServerSecurity);
         SecurityFilterChain filterChain = mcpServerSecurity.filterChain(null);
         assertNotNull(filterChain);
     }
-}
 
+    @Test
+    void testActuatorRequiresAuthenticationExceptHealth() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/vectorindex")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/health")).andExpect(result ->
+                assertNotEquals(401, result.getResponse().getStatus()));
+    }
+}
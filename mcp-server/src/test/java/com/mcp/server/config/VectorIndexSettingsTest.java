@@ -0,0 +1,104 @@
+package com.mcp.server.config;
+
+import com.mcp.server.config.VectorIndexSettings.IndexType;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.config.VectorIndexSettings.StorageMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorIndexSettingsTest {
+
+    private VectorIndexSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new VectorIndexSettings();
+        ReflectionTestUtils.setField(settings, "indexType", IndexType.HNSW);
+        ReflectionTestUtils.setField(settings, "storageMode", StorageMode.FULL);
+        ReflectionTestUtils.setField(settings, "dimensions", 1536);
+        ReflectionTestUtils.setField(settings, "hnswM", 16);
+        ReflectionTestUtils.setField(settings, "hnswEfConstruction", 64);
+        ReflectionTestUtils.setField(settings, "ivfflatLists", 100);
+        ReflectionTestUtils.setField(settings, "fastEfSearch", 40);
+        ReflectionTestUtils.setField(settings, "accurateEfSearch", 400);
+        ReflectionTestUtils.setField(settings, "balancedProbes", 10);
+    }
+
+    @Test
+    void testMatchesExistingIndexDefinition() {
+        String hnsw = "CREATE INDEX document_chunks_embedding_idx ON public.document_chunks"
+                + " USING hnsw (embedding vector_cosine_ops) WITH (m='16', ef_construction='64')";
+        String ivfflat = "CREATE INDEX document_chunks_embedding_idx ON public.document_chunks"
+                + " USING ivfflat (embedding vector_cosine_ops) WITH (lists='100')";
+
+        assertTrue(settings.matches(hnsw, 100));
+        assertFalse(settings.matches(ivfflat, 100));
+
+        ReflectionTestUtils.setField(settings, "hnswM", 32);
+        assertFalse(settings.matches(hnsw, 100));
+
+        ReflectionTestUtils.setField(settings, "indexType", IndexType.IVFFLAT);
+        assertTrue(settings.matches(ivfflat, -1));
+        assertFalse(settings.matches(ivfflat, 1000));
+        assertEquals(100, VectorIndexSettings.parseLists(ivfflat));
+    }
+
+    @Test
+    void testHnswScanDepthIsCappedByPgvector() {
+        assertEquals(VectorIndexSettings.MAX_EF_SEARCH, settings.maxScanDepth());
+
+        ReflectionTestUtils.setField(settings, "indexType", IndexType.IVFFLAT);
+        assertEquals(Integer.MAX_VALUE, settings.maxScanDepth());
+    }
+
+    @Test
+    void testQuantizedStorageUsesExpressionIndex() {
+        ReflectionTestUtils.setField(settings, "storageMode", StorageMode.BINARY);
+
+        String sql = settings.createIndexSql(0);
+
+        assertTrue(sql.contains("USING hnsw ((CAST(binary_quantize(embedding) AS bit(1536))) bit_hamming_ops)"));
+        assertTrue(settings.approximateDistanceSql("query").contains("<~>"));
+        assertTrue(settings.isQuantized());
+
+        // Un index plein précision existant doit être reconstruit
+        String full = "CREATE INDEX document_chunks_embedding_idx ON public.document_chunks"
+                + " USING hnsw (embedding vector_cosine_ops) WITH (m='16', ef_construction='64')";
+        assertFalse(settings.matches(full, -1));
+        ReflectionTestUtils.setField(settings, "storageMode", StorageMode.HALFVEC);
+        assertFalse(settings.matches(full, -1));
+    }
+
+    @Test
+    void testTargetListsFollowsRowCount() {
+        ReflectionTestUtils.setField(settings, "ivfflatAutoLists", true);
+        assertEquals(1, settings.targetLists(0));
+        assertEquals(1000, settings.targetLists(1_000_000));
+
+        ReflectionTestUtils.setField(settings, "ivfflatAutoLists", false);
+        assertEquals(100, settings.targetLists(1_000_000));
+    }
+
+    @Test
+    void testTuningPerProfile() {
+        assertEquals("hnsw.ef_search", settings.tuning(SearchProfile.FAST).setting());
+        assertEquals(400, settings.tuning(SearchProfile.ACCURATE).value());
+
+        ReflectionTestUtils.setField(settings, "indexType", IndexType.IVFFLAT);
+        assertEquals("ivfflat.probes", settings.tuning(SearchProfile.BALANCED).setting());
+        assertEquals(10, settings.tuning(SearchProfile.BALANCED).value());
+
+        ReflectionTestUtils.setField(settings, "indexType", IndexType.NONE);
+        assertNull(settings.tuning(SearchProfile.BALANCED));
+    }
+
+    @Test
+    void testParseProfile() {
+        assertEquals(SearchProfile.BALANCED, SearchProfile.parse(null));
+        assertEquals(SearchProfile.ACCURATE, SearchProfile.parse(" accurate "));
+        assertThrows(IllegalArgumentException.class, () -> SearchProfile.parse("slow"));
+    }
+}
@@ -0,0 +1,23 @@
+package com.mcp.server.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCursorTest {
+
+    @Test
+    void testRoundTripKeepsExactDistance() {
+        SearchCursor cursor = new SearchCursor(0.123456789012345d, 42L, 10);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void testRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("MTIz"));
+    }
+}
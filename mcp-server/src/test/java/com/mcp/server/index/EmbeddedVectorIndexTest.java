@@ -0,0 +1,118 @@
+package com.mcp.server.index;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkVector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class EmbeddedVectorIndexTest {
+
+    @TempDir
+    Path directory;
+
+    // Contenu de document_chunks, par id
+    private final TreeMap<Long, float[]> table = new TreeMap<>();
+    private EmbeddedVectorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        VectorRepository vectorRepo = mock(VectorRepository.class);
+        when(vectorRepo.findEmbeddingsAfter(anyLong(), anyInt())).thenAnswer(invocation ->
+                table.tailMap(invocation.<Long>getArgument(0), false).entrySet().stream()
+                        .limit(invocation.<Integer>getArgument(1))
+                        .map(entry -> new ChunkVector(entry.getKey(), entry.getValue()))
+                        .toList());
+        when(vectorRepo.findEmbeddedChunkIdsAfter(anyLong(), anyInt())).thenAnswer(invocation ->
+                table.tailMap(invocation.<Long>getArgument(0), false).keySet().stream()
+                        .limit(invocation.<Integer>getArgument(1))
+                        .toList());
+        when(vectorRepo.findEmbeddingsByIds(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream()
+                        .filter(table::containsKey)
+                        .sorted()
+                        .map(id -> new ChunkVector(id, table.get(id)))
+                        .toList());
+        when(vectorRepo.findChunksByIds(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, DocumentChunk> chunks = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (table.containsKey(id)) {
+                    DocumentChunk chunk = new DocumentChunk();
+                    chunk.setId(id);
+                    chunks.put(id, chunk);
+                }
+            }
+            return chunks;
+        });
+
+        VectorIndexSettings indexSettings = new VectorIndexSettings();
+        ReflectionTestUtils.setField(indexSettings, "dimensions", 3);
+        ReflectionTestUtils.setField(indexSettings, "hnswM", 16);
+        ReflectionTestUtils.setField(indexSettings, "hnswEfConstruction", 64);
+        ReflectionTestUtils.setField(indexSettings, "balancedEfSearch", 100);
+
+        index = new EmbeddedVectorIndex(vectorRepo, indexSettings, mock(ExactVectorSearch.class));
+        ReflectionTestUtils.setField(index, "directory", directory);
+        ReflectionTestUtils.setField(index, "syncBatchSize", 2);
+        ReflectionTestUtils.setField(index, "rebuildDeletedRatio", 0.5);
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    private List<Long> search(float[] query) {
+        return index.search(query, 10, SearchProfile.BALANCED, SearchFilter.NONE, null, null).stream()
+                .map(DocumentChunk::getId)
+                .toList();
+    }
+
+    @Test
+    void testChunkCommittedOutOfIdOrderIsAddedByReconcile() {
+        table.put(2L, new float[]{0f, 1f, 0f});
+        index.sync();
+        // Id réservé avant le chunk 2 mais validé après sa synchronisation
+        table.put(1L, new float[]{1f, 0f, 0f});
+        index.sync();
+        assertFalse(search(new float[]{1f, 0f, 0f}).contains(1L));
+
+        index.reconcile();
+
+        assertEquals(List.of(1L, 2L), search(new float[]{1f, 0f, 0f}));
+    }
+
+    @Test
+    void testReconcileRemovesDeletedChunks() {
+        table.put(1L, new float[]{1f, 0f, 0f});
+        table.put(2L, new float[]{0f, 1f, 0f});
+        table.put(3L, new float[]{0f, 0f, 1f});
+        index.sync();
+        table.remove(2L);
+
+        index.reconcile();
+
+        assertEquals(List.of(1L, 3L), search(new float[]{1f, 0f, 0f}));
+    }
+}
@@ -0,0 +1,68 @@
+package com.mcp.server.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactVectorScannerTest {
+
+    @Test
+    void testSimdDotMatchesScalar() {
+        Random random = new Random(3);
+        // Longueur non multiple de la largeur SIMD pour couvrir la boucle de fin
+        float[] a = new float[1537];
+        float[] b = new float[1537];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+        }
+
+        assertEquals(ExactVectorScanner.dotScalar(a, 0, b, 0, a.length),
+                ExactVectorScanner.dot(a, 0, b, 0, a.length), 1e-2);
+    }
+
+    @Test
+    void testTopKOrdersByCosineDistanceThenId() {
+        ExactVectorScanner scanner = new ExactVectorScanner(2, 2, ExactVectorScanner.Metric.COSINE);
+        scanner.add(3, new float[]{1, 0});
+        scanner.add(1, new float[]{0, 1});
+        scanner.add(2, new float[]{2, 0});   // même direction que l'id 3
+        scanner.add(4, new float[]{1, 1});
+
+        List<ExactVectorScanner.Match> matches = scanner.topK(new float[]{1, 0}, 3, null);
+
+        assertEquals(List.of(2L, 3L, 4L), matches.stream().map(ExactVectorScanner.Match::id).toList());
+        assertEquals(0, matches.get(0).distance(), 1e-6);
+        assertEquals(1 - Math.sqrt(0.5), matches.get(2).distance(), 1e-6);
+    }
+
+    @Test
+    void testParallelScanMatchesSequential() {
+        Random random = new Random(11);
+        int count = ExactVectorScanner.PARALLEL_THRESHOLD * 2;
+        ExactVectorScanner scanner = new ExactVectorScanner(8, count, ExactVectorScanner.Metric.INNER_PRODUCT);
+        float[] query = {1, 2, 3, 4, 5, 6, 7, 8};
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[8];
+            for (int j = 0; j < 8; j++) {
+                vector[j] = (float) random.nextGaussian();
+            }
+            scanner.add(i, vector);
+        }
+
+        List<ExactVectorScanner.Match> top = scanner.topK(query, 10, null);
+
+        assertEquals(10, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).distance() <= top.get(i).distance());
+        }
+        // Le filtre reprend après le 5e résultat
+        ExactVectorScanner.Match fifth = top.get(4);
+        List<ExactVectorScanner.Match> next = scanner.topK(query, 5,
+                (id, distance) -> distance > fifth.distance() || (distance == fifth.distance() && id > fifth.id()));
+        assertEquals(top.subList(5, 10), next);
+    }
+}
@@ -0,0 +1,141 @@
+package com.mcp.server.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int COUNT = 2000;
+
+    @TempDir
+    Path directory;
+
+    private MappedVectorStore vectors;
+    private float[][] data;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        vectors = new MappedVectorStore(directory.resolve("vectors.bin"), DIMENSIONS);
+        Random random = new Random(7);
+        data = new float[COUNT][DIMENSIONS];
+        for (float[] vector : data) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        vectors.close();
+    }
+
+    @Test
+    void testRecallAgainstExactSearch() {
+        HnswGraph graph = build();
+
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = data[q * 37];
+            Set<Long> expected = exactNeighbors(query, 10);
+            hits += (int) graph.search(query, 10, 64).stream()
+                    .filter(neighbor -> expected.contains(neighbor.chunkId()))
+                    .count();
+        }
+        assertTrue(hits / 500.0 >= 0.9, "recall@10 = " + hits / 500.0);
+    }
+
+    @Test
+    void testResultsAreSortedWithCosineDistance() {
+        HnswGraph graph = build();
+
+        List<HnswGraph.Neighbor> neighbors = graph.search(data[5], 5, 32);
+
+        assertEquals(5, neighbors.size());
+        // Le vecteur lui-même (id 1000 + 5) est à distance nulle
+        assertEquals(1005L, neighbors.get(0).chunkId());
+        assertEquals(0, neighbors.get(0).distance(), 1e-5);
+        for (int i = 1; i < neighbors.size(); i++) {
+            assertTrue(neighbors.get(i - 1).distance() <= neighbors.get(i).distance());
+        }
+    }
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        HnswGraph graph = build();
+        Path file = directory.resolve("graph.bin");
+        graph.save(file);
+
+        HnswGraph loaded = HnswGraph.load(file, vectors, 16, 64);
+
+        assertEquals(COUNT, loaded.size());
+        assertEquals(1000L + COUNT - 1, loaded.maxChunkId());
+        assertEquals(graph.search(data[42], 10, 64), loaded.search(data[42], 10, 64));
+        assertThrows(IOException.class, () -> HnswGraph.load(file, vectors, 32, 64));
+    }
+
+    @Test
+    void testDeletedChunksAreSkipped() throws IOException {
+        HnswGraph graph = build();
+        Set<Long> removed = graph.search(data[5], 10, 64).stream()
+                .map(HnswGraph.Neighbor::chunkId)
+                .collect(Collectors.toSet());
+
+        assertEquals(10, graph.delete(removed));
+
+        List<HnswGraph.Neighbor> neighbors = graph.search(data[5], 10, 64);
+        assertEquals(10, neighbors.size());
+        neighbors.forEach(neighbor -> assertFalse(removed.contains(neighbor.chunkId())));
+        assertEquals(COUNT - 10, graph.chunkIds().length);
+
+        Path file = directory.resolve("graph.bin");
+        graph.save(file);
+        HnswGraph loaded = HnswGraph.load(file, vectors, 16, 64);
+        assertEquals(10, loaded.deletedCount());
+        assertEquals(neighbors, loaded.search(data[5], 10, 64));
+    }
+
+    @Test
+    void testEmptyGraph() {
+        assertTrue(new HnswGraph(vectors, 16, 64).search(data[0], 5, 32).isEmpty());
+    }
+
+    private HnswGraph build() {
+        HnswGraph graph = new HnswGraph(vectors, 16, 64);
+        for (int i = 0; i < COUNT; i++) {
+            graph.add(1000L + i, data[i]);
+        }
+        return graph;
+    }
+
+    private Set<Long> exactNeighbors(float[] query, int k) {
+        float[] normalizedQuery = HnswGraph.normalize(query);
+        return IntStream.range(0, COUNT).boxed()
+                .sorted(Comparator.comparingDouble(i -> -dot(HnswGraph.normalize(data[i]), normalizedQuery)))
+                .limit(k)
+                .map(i -> 1000L + i)
+                .collect(Collectors.toSet());
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
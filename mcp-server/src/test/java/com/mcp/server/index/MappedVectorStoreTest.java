@@ -0,0 +1,39 @@
+package com.mcp.server.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReopenedStoreMapsExistingSegments() throws IOException {
+        Path file = directory.resolve("vectors.bin");
+        try (MappedVectorStore store = new MappedVectorStore(file, 4)) {
+            store.set(3, new float[]{1, 2, 3, 4});
+            store.set(20_000, new float[]{5, 6, 7, 8});
+            store.force();
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(file, 4)) {
+            assertEquals(2 * 16_384, reopened.capacity());
+            assertArrayEquals(new float[]{1, 2, 3, 4}, reopened.get(3));
+            assertArrayEquals(new float[]{5, 6, 7, 8}, reopened.get(20_000));
+            assertEquals(70, reopened.dot(20_000, new float[]{1, 2, 3, 4}), 1e-6);
+        }
+    }
+
+    @Test
+    void testRejectsWrongDimensions() throws IOException {
+        try (MappedVectorStore store = new MappedVectorStore(directory.resolve("vectors.bin"), 4)) {
+            assertThrows(IllegalArgumentException.class, () -> store.set(0, new float[3]));
+        }
+    }
+}
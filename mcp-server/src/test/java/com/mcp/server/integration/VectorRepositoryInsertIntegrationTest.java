@@ -0,0 +1,114 @@
+package com.mcp.server.integration;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Les deux modes d'insertion (batch JDBC et COPY binaire) doivent écrire exactement les
+ * mêmes lignes, valeurs NULL et tableaux compris.
+ */
+@Testcontainers
+class VectorRepositoryInsertIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("vectordb");
+
+    private JdbcTemplate jdbcTemplate;
+    private VectorRepository vectorRepo;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS document_chunks");
+        jdbcTemplate.execute("""
+            CREATE TABLE document_chunks (
+                id BIGSERIAL PRIMARY KEY,
+                document_id VARCHAR(255) NOT NULL,
+                content TEXT NOT NULL,
+                embedding vector(3),
+                chunk_index INTEGER NOT NULL,
+                chunk_size INTEGER NOT NULL,
+                content_hash VARCHAR(64),
+                uploaded_by VARCHAR(255),
+                file_type VARCHAR(50),
+                tags TEXT[],
+                simhash BIGINT,
+                duplicate_of BIGINT
+            )
+            """);
+        vectorRepo = new VectorRepository(jdbcTemplate, new VectorIndexSettings(),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    private static DocumentChunk chunk(int index, String content, float[] embedding, List<String> tags,
+                                       Long simhash, Long duplicateOf) {
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setDocumentId("doc-1");
+        chunk.setContent(content);
+        chunk.setEmbedding(embedding);
+        chunk.setChunkIndex(index);
+        chunk.setChunkSize(content.length());
+        chunk.setContentHash("hash-" + index);
+        chunk.setUploadedBy("alice");
+        chunk.setFileType("pdf");
+        chunk.setTags(tags);
+        chunk.setSimhash(simhash);
+        chunk.setDuplicateOf(duplicateOf);
+        return chunk;
+    }
+
+    @ParameterizedTest
+    @EnumSource(VectorRepository.InsertMode.class)
+    void testInsertModesWriteIdenticalRows(VectorRepository.InsertMode mode) throws Exception {
+        ReflectionTestUtils.setField(vectorRepo, "insertMode", mode);
+        DocumentChunk canonical = chunk(0, "Résumé trimestriel : chiffre d'affaires en hausse", new float[]{0.5f, -1f, 2f},
+                List.of("finance", "2024"), -42L, null);
+        DocumentChunk duplicate = chunk(1, "Résumé trimestriel : chiffre d'affaires en hausse !", null,
+                List.of(), 7L, null);
+        DocumentChunk untagged = chunk(2, "texte", new float[]{1f, 0f, 0f}, null, null, null);
+
+        vectorRepo.insertChunks(List.of(canonical, duplicate, untagged));
+        duplicate.setDuplicateOf(canonical.getId());
+        jdbcTemplate.update("UPDATE document_chunks SET duplicate_of = ? WHERE id = ?", canonical.getId(), duplicate.getId());
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, content, embedding::text AS embedding, chunk_index, tags, simhash, duplicate_of"
+                        + " FROM document_chunks ORDER BY chunk_index");
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).get("id")).isEqualTo(canonical.getId());
+        assertThat(rows.get(0).get("content")).isEqualTo(canonical.getContent());
+        assertThat(rows.get(0).get("embedding")).isEqualTo("[0.5,-1,2]");
+        assertThat(Arrays.asList((Object[]) ((Array) rows.get(0).get("tags")).getArray())).containsExactly("finance", "2024");
+        assertThat(rows.get(0).get("simhash")).isEqualTo(-42L);
+        assertThat(rows.get(1).get("embedding")).isNull();
+        assertThat((Object[]) ((Array) rows.get(1).get("tags")).getArray()).isEmpty();
+        assertThat(rows.get(1).get("duplicate_of")).isEqualTo(canonical.getId());
+        assertThat(rows.get(2).get("tags")).isNull();
+        assertThat(rows.get(2).get("simhash")).isNull();
+    }
+}
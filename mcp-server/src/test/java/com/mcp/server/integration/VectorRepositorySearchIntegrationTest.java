@@ -0,0 +1,130 @@
+package com.mcp.server.integration;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.IndexType;
+import com.mcp.server.config.VectorIndexSettings.SearchProfile;
+import com.mcp.server.config.VectorIndexSettings.StorageMode;
+import com.mcp.server.dto.SearchFilter;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkVector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un quasi-doublon lié (mode LINK, sans embedding propre) reste trouvable : par son texte en
+ * recherche hybride, et par l'embedding de son chunk canonique dans un sous-ensemble filtré.
+ */
+@Testcontainers
+class VectorRepositorySearchIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("vectordb");
+
+    private static final float[] QUERY = {1f, 0f, 0f};
+
+    private VectorRepository vectorRepo;
+    private long canonicalId;
+    private long linkedId;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS document_chunks");
+        jdbcTemplate.execute("""
+            CREATE TABLE document_chunks (
+                id BIGSERIAL PRIMARY KEY,
+                document_id VARCHAR(255) NOT NULL,
+                content TEXT NOT NULL,
+                embedding vector(3),
+                chunk_index INTEGER NOT NULL,
+                chunk_size INTEGER NOT NULL,
+                uploaded_by VARCHAR(255),
+                file_type VARCHAR(50),
+                tags TEXT[],
+                duplicate_of BIGINT,
+                content_tsv tsvector GENERATED ALWAYS AS (to_tsvector('simple'::regconfig, content)) STORED
+            )
+            """);
+        canonicalId = jdbcTemplate.queryForObject("""
+            INSERT INTO document_chunks (document_id, content, embedding, chunk_index, chunk_size, uploaded_by)
+            VALUES ('doc-1', 'Commande référence A-1001 livrée', '[0.9,0.1,0]', 0, 32, 'alice')
+            RETURNING id
+            """, Long.class);
+        jdbcTemplate.update("""
+            INSERT INTO document_chunks (document_id, content, embedding, chunk_index, chunk_size, uploaded_by)
+            VALUES ('doc-1', 'Sans rapport', '[0,1,0]', 1, 12, 'alice')
+            """);
+        linkedId = jdbcTemplate.queryForObject("""
+            INSERT INTO document_chunks (document_id, content, embedding, chunk_index, chunk_size, uploaded_by, duplicate_of)
+            VALUES ('doc-2', 'Commande référence A-2002 livrée', NULL, 0, 32, 'bob', ?)
+            RETURNING id
+            """, Long.class, canonicalId);
+
+        VectorIndexSettings indexSettings = new VectorIndexSettings();
+        ReflectionTestUtils.setField(indexSettings, "indexType", IndexType.NONE);
+        ReflectionTestUtils.setField(indexSettings, "storageMode", StorageMode.FULL);
+        ReflectionTestUtils.setField(indexSettings, "iterativeScanMode", "off");
+        ReflectionTestUtils.setField(indexSettings, "textSearchConfig", "simple");
+        vectorRepo = new VectorRepository(jdbcTemplate, indexSettings,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(vectorRepo, "rrfK", 60);
+        ReflectionTestUtils.setField(vectorRepo, "hybridCandidates", 10);
+    }
+
+    @Test
+    void testFilteredSemanticSearchReturnsLinkedChunk() {
+        List<DocumentChunk> results = vectorRepo.semanticSearch(QUERY, 5, SearchProfile.BALANCED,
+                SearchFilter.of(List.of("doc-2")), null, null);
+
+        assertThat(results).extracting(DocumentChunk::getId).containsExactly(linkedId);
+        assertThat(results.get(0).getDistance()).isLessThan(0.01);
+    }
+
+    @Test
+    void testUnfilteredSemanticSearchReturnsOnlyCanonicalChunk() {
+        List<DocumentChunk> results = vectorRepo.semanticSearch(QUERY, 5, SearchProfile.BALANCED,
+                SearchFilter.NONE, null, null);
+
+        assertThat(results).extracting(DocumentChunk::getId).doesNotContain(linkedId).contains(canonicalId);
+    }
+
+    @Test
+    void testHybridSearchFindsLinkedChunkByItsOwnText() {
+        List<DocumentChunk> results = vectorRepo.hybridSearch(QUERY, "A-2002", 5, SearchProfile.BALANCED,
+                SearchFilter.NONE, null, null);
+
+        assertThat(results).extracting(DocumentChunk::getId).contains(linkedId);
+        DocumentChunk linked = results.stream().filter(chunk -> chunk.getId() == linkedId).findFirst().orElseThrow();
+        assertThat(linked.getDistance()).isNotNull();
+    }
+
+    @Test
+    void testExactSubsetIncludesLinkedChunk() {
+        SearchFilter filter = SearchFilter.of(null, "bob", null, null);
+
+        List<ChunkVector> subset = vectorRepo.findEmbeddings(filter, 10);
+
+        assertThat(vectorRepo.countEmbeddings(filter, 10)).isEqualTo(1);
+        assertThat(subset).extracting(ChunkVector::id).containsExactly(linkedId);
+        assertThat(subset.get(0).embedding()).containsExactly(0.9f, 0.1f, 0f);
+    }
+}
@@ -0,0 +1,116 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.EmbeddingClientSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AdaptiveEmbeddingModelTest {
+
+    private EmbeddingModel delegate;
+    private EmbeddingClientSettings settings;
+    private AdaptiveEmbeddingModel model;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(EmbeddingModel.class);
+        settings = new EmbeddingClientSettings();
+        ReflectionTestUtils.setField(settings, "initialConcurrency", 4);
+        ReflectionTestUtils.setField(settings, "minConcurrency", 1);
+        ReflectionTestUtils.setField(settings, "maxConcurrency", 32);
+        ReflectionTestUtils.setField(settings, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(settings, "maxRetries", 3);
+        ReflectionTestUtils.setField(settings, "initialBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(settings, "maxBackoff", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(settings, "linger", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(settings, "coalesceMaxSize", 32);
+        model = new AdaptiveEmbeddingModel(delegate, settings, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        model.close();
+    }
+
+    private static EmbeddingResponse lengths(EmbeddingRequest request) {
+        return new EmbeddingResponse(request.getInstructions().stream()
+                .map(text -> new Embedding(new float[]{text.length()}, 0))
+                .toList());
+    }
+
+    @Test
+    void testThrottledRequestIsRetriedAndConcurrencyDecreased() {
+        when(delegate.call(any()))
+                .thenThrow(new RuntimeException("429 - {\"error\": \"Rate limit reached. Please try again in 20ms.\"}"))
+                .thenAnswer(invocation -> lengths(invocation.getArgument(0)));
+
+        List<float[]> vectors = model.embed(List.of("abc"));
+
+        assertEquals(3f, vectors.get(0)[0]);
+        verify(delegate, times(2)).call(any());
+        // 4 × 0.5 puis +1/limite pour la tentative réussie
+        assertEquals(2.5, model.concurrencyLimit());
+        assertEquals(0, model.inFlight());
+    }
+
+    @Test
+    void testOtherErrorsAreNotRetried() {
+        when(delegate.call(any())).thenThrow(new RuntimeException("401 - invalid api key"));
+
+        assertThrows(RuntimeException.class, () -> model.embed(List.of("abc")));
+        verify(delegate, times(1)).call(any());
+        assertEquals(4.0, model.concurrencyLimit());
+    }
+
+    @Test
+    void testConcurrentSingleEmbedsAreCoalesced() throws Exception {
+        when(delegate.call(any())).thenAnswer(invocation -> lengths(invocation.getArgument(0)));
+
+        List<Future<float[]>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String query : List.of("a", "bb", "ccc")) {
+                results.add(executor.submit(() -> model.embed(query)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 1f, results.get(i).get()[0]);
+            }
+        }
+        verify(delegate, times(1)).call(any());
+    }
+
+    @Test
+    void testRetryDelayIsReadFromResponse() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        HttpClientErrorException tooMany = HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                "Too Many Requests", headers, new byte[0], StandardCharsets.UTF_8);
+
+        assertEquals(Optional.of(Duration.ofSeconds(3)), AdaptiveEmbeddingModel.throttleDelay(new RuntimeException(tooMany)));
+        assertEquals(Optional.of(Duration.ofMillis(1500)),
+                AdaptiveEmbeddingModel.throttleDelay(new RuntimeException("429 - Please try again in 1.5s.")));
+        assertEquals(Optional.of(Duration.ZERO), AdaptiveEmbeddingModel.throttleDelay(new RuntimeException("429 - quota")));
+        assertEquals(Optional.empty(), AdaptiveEmbeddingModel.throttleDelay(new RuntimeException("500 - boom")));
+    }
+}
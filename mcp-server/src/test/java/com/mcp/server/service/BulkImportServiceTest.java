@@ -0,0 +1,113 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.BulkImport;
+import com.mcp.server.entity.DocumentMetadata;
+import com.mcp.server.repository.BulkImportRepository;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private DocumentMetadataRepository metadataRepo;
+    private DocumentStorage documentStorage;
+    private IngestionPipeline ingestionPipeline;
+    private DocumentIndexer documentIndexer;
+    private BulkImportService service;
+
+    @BeforeEach
+    void setUp() {
+        BulkImportRepository importRepo = mock(BulkImportRepository.class);
+        metadataRepo = mock(DocumentMetadataRepository.class);
+        documentStorage = mock(DocumentStorage.class);
+        ingestionPipeline = mock(IngestionPipeline.class);
+        when(importRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(metadataRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(metadataRepo.findByContentHash(anyString())).thenReturn(List.of());
+
+        documentIndexer = mock(DocumentIndexer.class);
+        DocumentDeduplicator deduplicator = new DocumentDeduplicator(metadataRepo, documentIndexer,
+                documentStorage, mock(DocumentMetadataCache.class));
+        service = new BulkImportService(importRepo, metadataRepo, mock(DocumentMetadataCache.class),
+                documentStorage, ingestionPipeline, deduplicator, documentIndexer);
+        ReflectionTestUtils.setField(service, "fetchWorkers", 2);
+        ReflectionTestUtils.setField(service, "maxInFlight", 2);
+        ReflectionTestUtils.setField(service, "checkpointInterval", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(service, "sourceBuckets", List.of("imports"));
+        ReflectionTestUtils.setField(service, "directory", directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void testRejectsBucketOutsideAllowList() {
+        assertThrows(IllegalArgumentException.class, () -> service.startFromPrefix("documents", "", null, "alice"));
+    }
+
+    @Test
+    void testImportsPrefixAndSkipsKnownContent() throws Exception {
+        when(documentStorage.listObjects("imports", "batch/", null))
+                .thenReturn(List.of("batch/", "batch/a.txt", "batch/b.txt", "batch/c.txt").iterator());
+        doAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            Files.writeString(invocation.getArgument(2), "content of " + key);
+            return null;
+        }).when(documentStorage).download(eq("imports"), anyString(), any(Path.class));
+        DocumentMetadata indexed = new DocumentMetadata();
+        indexed.setDocumentId("indexed");
+        indexed.setIndexingStatus(DocumentMetadata.IndexingStatus.COMPLETED);
+        when(metadataRepo.findByContentHash(ContentHash.sha256("content of batch/b.txt"))).thenReturn(List.of(indexed));
+        // Une copie en échec n'empêche pas l'import : elle est supprimée et remplacée
+        DocumentMetadata failed = new DocumentMetadata();
+        failed.setDocumentId("failed");
+        failed.setIndexingStatus(DocumentMetadata.IndexingStatus.FAILED);
+        when(metadataRepo.findByContentHash(ContentHash.sha256("content of batch/c.txt"))).thenReturn(List.of(failed));
+        when(ingestionPipeline.submitAndWait(any(), anyString(), any(Path.class))).thenAnswer(invocation -> {
+            IngestionJob job = new IngestionJob(invocation.<DocumentMetadataView>getArgument(0), invocation.getArgument(1));
+            job.moveTo(IngestionJob.Status.EXTRACTING);
+            job.sliceQueued(3);
+            job.extractionFinished();
+            job.sliceIndexed(3);
+            job.completed();
+            return job;
+        });
+
+        BulkImport bulkImport = service.startFromPrefix("imports", "batch/", "archive", "alice");
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (bulkImport.getStatus() == BulkImport.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(BulkImport.Status.COMPLETED, bulkImport.getStatus());
+        assertEquals(2, bulkImport.getDocuments());
+        assertEquals(1, bulkImport.getSkipped());
+        assertEquals(6, bulkImport.getChunks());
+        assertEquals("batch/c.txt", bulkImport.getCheckpoint());
+        verify(ingestionPipeline, times(2)).submitAndWait(any(), anyString(), any(Path.class));
+        verify(documentIndexer, times(2)).begin(anyString());
+        verify(documentIndexer, never()).fail(anyString());
+        verify(documentStorage).delete("failed");
+        verify(metadataRepo).delete(failed);
+    }
+}
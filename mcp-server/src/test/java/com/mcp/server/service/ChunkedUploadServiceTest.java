@@ -0,0 +1,102 @@
+package com.mcp.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path spillDir;
+
+    private ChunkedUploadService uploads;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        uploads = new ChunkedUploadService();
+        ReflectionTestUtils.setField(uploads, "spillDir", spillDir);
+        ReflectionTestUtils.setField(uploads, "maxUploadSize", DataSize.ofBytes(16));
+        ReflectionTestUtils.setField(uploads, "sessionTimeout", Duration.ofMinutes(30));
+        uploads.init();
+    }
+
+    private static String base64(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPartsAreConcatenatedOnDisk() throws Exception {
+        UploadSession session = uploads.begin("notes.txt", "a,b", "alice");
+        uploads.append(session.getUploadId(), 0, base64("hello "), "alice");
+        uploads.append(session.getUploadId(), 1, base64("world"), "alice");
+
+        UploadSession committed = uploads.commit(session.getUploadId(), "alice");
+
+        assertEquals("hello world", Files.readString(committed.getSpillFile()));
+        assertEquals(11, committed.getBytesWritten());
+        assertEquals(ContentHash.sha256("hello world"), committed.getContentHash());
+    }
+
+    @Test
+    void testRejectsOutOfOrderPart() {
+        UploadSession session = uploads.begin("notes.txt", null, "alice");
+        uploads.append(session.getUploadId(), 0, base64("a"), "alice");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> uploads.append(session.getUploadId(), 2, base64("b"), "alice"));
+    }
+
+    @Test
+    void testOtherOwnerCannotUseSession() {
+        UploadSession session = uploads.begin("notes.txt", null, "alice");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> uploads.append(session.getUploadId(), 0, base64("a"), "bob"));
+        assertThrows(IllegalArgumentException.class, () -> uploads.commit(session.getUploadId(), "bob"));
+    }
+
+    @Test
+    void testOversizedUploadIsAbortedAndDeleted() {
+        UploadSession session = uploads.begin("notes.txt", null, "alice");
+        uploads.append(session.getUploadId(), 0, base64("0123456789"), "alice");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> uploads.append(session.getUploadId(), 1, base64("0123456789"), "alice"));
+        assertFalse(Files.exists(session.getSpillFile()));
+        assertThrows(IllegalArgumentException.class, () -> uploads.commit(session.getUploadId(), "alice"));
+    }
+
+    @Test
+    void testExpiredSessionsAreEvicted() {
+        UploadSession stale = uploads.begin("old.txt", null, "alice");
+        ReflectionTestUtils.setField(stale, "lastActivity", LocalDateTime.now().minusHours(1));
+
+        uploads.begin("new.txt", null, "alice");
+
+        assertFalse(Files.exists(stale.getSpillFile()));
+        assertThrows(IllegalArgumentException.class, () -> uploads.commit(stale.getUploadId(), "alice"));
+    }
+
+    @Test
+    void testScheduledEvictionDeletesAbandonedSpillFiles() {
+        UploadSession stale = uploads.begin("old.txt", null, "alice");
+        UploadSession active = uploads.begin("new.txt", null, "alice");
+        ReflectionTestUtils.setField(stale, "lastActivity", LocalDateTime.now().minusHours(1));
+
+        uploads.evictExpiredSessions();
+
+        assertFalse(Files.exists(stale.getSpillFile()));
+        assertTrue(Files.exists(active.getSpillFile()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.mcp.server.service;
+
+import com.mcp.server.entity.DocumentMetadata;
+import com.mcp.server.entity.DocumentMetadata.IndexingStatus;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DocumentDeduplicatorTest {
+
+    private DocumentMetadataRepository metadataRepo;
+    private DocumentIndexer documentIndexer;
+    private DocumentStorage documentStorage;
+    private DocumentDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        metadataRepo = mock(DocumentMetadataRepository.class);
+        documentIndexer = mock(DocumentIndexer.class);
+        documentStorage = mock(DocumentStorage.class);
+        deduplicator = new DocumentDeduplicator(metadataRepo, documentIndexer, documentStorage,
+                mock(DocumentMetadataCache.class));
+    }
+
+    private static DocumentMetadata document(String documentId, IndexingStatus status) {
+        DocumentMetadata metadata = new DocumentMetadata();
+        metadata.setDocumentId(documentId);
+        metadata.setIndexingStatus(status);
+        return metadata;
+    }
+
+    @Test
+    void testIndexedDocumentIsADuplicate() {
+        DocumentMetadata indexing = document("doc-1", IndexingStatus.INDEXING);
+        DocumentMetadata completed = document("doc-2", IndexingStatus.COMPLETED);
+        when(metadataRepo.findByContentHash("hash")).thenReturn(List.of(indexing, completed));
+
+        assertSame(completed, deduplicator.findDuplicate("hash").orElseThrow());
+        verify(metadataRepo, never()).delete(any());
+    }
+
+    @Test
+    void testFailedDocumentIsReplaced() {
+        DocumentMetadata failed = document("doc-1", IndexingStatus.FAILED);
+        when(metadataRepo.findByContentHash("hash")).thenReturn(List.of(failed));
+
+        assertTrue(deduplicator.findDuplicate("hash").isEmpty());
+        verify(documentIndexer).delete("doc-1");
+        verify(documentStorage).delete("doc-1");
+        verify(metadataRepo).delete(failed);
+    }
+
+    @Test
+    void testDocumentsWithoutStatusAreIndexed() {
+        DocumentMetadata legacy = document("doc-1", null);
+        when(metadataRepo.findByContentHash("hash")).thenReturn(List.of(legacy));
+
+        assertTrue(deduplicator.findDuplicate("hash").orElseThrow().isIndexed());
+    }
+}
@@ -0,0 +1,252 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.DocumentChunk;
+import com.mcp.server.entity.DocumentMetadata.IndexingStatus;
+import com.mcp.server.repository.DocumentMetadataRepository;
+import com.mcp.server.repository.VectorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DocumentIndexerTest {
+
+    private static final DocumentMetadataView DOCUMENT = new DocumentMetadataView("doc-1", "report.pdf", null,
+            "pdf", "alice", List.of("finance", "2024"), LocalDateTime.now());
+
+    private EmbeddingBatcher embeddingBatcher;
+    private VectorRepository vectorRepo;
+    private NearDuplicateIndex nearDuplicates;
+    private DocumentMetadataRepository metadataRepo;
+    private DocumentIndexer indexer;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        embeddingBatcher = mock(EmbeddingBatcher.class);
+        vectorRepo = mock(VectorRepository.class);
+        when(embeddingBatcher.embedAll(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            List<float[]> vectors = new ArrayList<>();
+            texts.forEach(text -> vectors.add(new float[]{text.length()}));
+            return vectors;
+        });
+        when(vectorRepo.reserveChunkIds(anyInt())).thenAnswer(invocation ->
+                LongStream.range(0, invocation.<Integer>getArgument(0)).map(i -> nextId.getAndIncrement()).toArray());
+        when(vectorRepo.inTransaction(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        nearDuplicates = new NearDuplicateIndex(vectorRepo);
+        ReflectionTestUtils.setField(nearDuplicates, "mode", NearDuplicateIndex.Mode.LINK);
+        ReflectionTestUtils.setField(nearDuplicates, "maxDistance", 5);
+        ReflectionTestUtils.setField(nearDuplicates, "minWords", 8);
+        ReflectionTestUtils.setField(nearDuplicates, "maxEntries", 1000);
+        metadataRepo = mock(DocumentMetadataRepository.class);
+        when(metadataRepo.updateIndexingStatus(anyString(), any(IndexingStatus.class), any(IndexingStatus.class)))
+                .thenReturn(1);
+        indexer = new DocumentIndexer(embeddingBatcher, vectorRepo, nearDuplicates, metadataRepo);
+        ReflectionTestUtils.setField(indexer, "leaseDuration", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testReusesKnownEmbeddings() {
+        float[] stored = {42f};
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection()))
+                .thenReturn(Map.of(ContentHash.sha256("already indexed"), stored));
+
+        List<DocumentChunk> chunks = indexer.embed(DOCUMENT, 0, List.of("already indexed", "new text"));
+
+        assertSame(stored, chunks.get(0).getEmbedding());
+        assertEquals(8f, chunks.get(1).getEmbedding()[0]);
+        verify(embeddingBatcher).embedAll(List.of("new text"));
+    }
+
+    @Test
+    void testEmbedsDuplicateChunksOnce() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+
+        List<DocumentChunk> chunks = indexer.embed(DOCUMENT, 5, List.of("footer", "body", "footer"));
+
+        verify(embeddingBatcher).embedAll(List.of("footer", "body"));
+        assertSame(chunks.get(0).getEmbedding(), chunks.get(2).getEmbedding());
+        assertEquals(7, chunks.get(2).getChunkIndex());
+        assertEquals(ContentHash.sha256("body"), chunks.get(1).getContentHash());
+    }
+
+    @Test
+    void testCopiesFilterableMetadataOntoChunks() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+
+        DocumentChunk chunk = indexer.embed(DOCUMENT, 0, List.of("text")).get(0);
+
+        assertEquals("doc-1", chunk.getDocumentId());
+        assertEquals("alice", chunk.getUploadedBy());
+        assertEquals("pdf", chunk.getFileType());
+        assertEquals(List.of("finance", "2024"), chunk.getTags());
+    }
+
+    @Test
+    void testDocumentEmbeddingIsRefreshedAfterLastChunk() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+        ReflectionTestUtils.setField(indexer, "flushSize", 2);
+
+        DocumentIndexer.StreamWriter writer = indexer.openStream(DOCUMENT);
+        writer.accept("one");
+        writer.accept("two");
+        writer.accept("three");
+        verify(vectorRepo, never()).refreshDocumentEmbedding(anyString());
+
+        assertEquals(3, writer.finish());
+        verify(vectorRepo, times(2)).insertChunks(anyList());
+        verify(vectorRepo).refreshDocumentEmbedding("doc-1");
+        verify(metadataRepo).updateIndexingStatus("doc-1", IndexingStatus.INDEXING, IndexingStatus.COMPLETED);
+    }
+
+    @Test
+    void testDocumentFailedElsewhereIsNotCompleted() {
+        when(metadataRepo.updateIndexingStatus("doc-1", IndexingStatus.INDEXING, IndexingStatus.COMPLETED))
+                .thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> indexer.complete("doc-1"));
+    }
+
+    @Test
+    void testFailedIndexingRemovesPartialChunks() {
+        when(vectorRepo.findChunkIds("doc-1")).thenReturn(List.of(1L, 2L));
+        when(vectorRepo.removeChunks(anyCollection())).thenReturn(new VectorRepository.ChunkRemoval(List.of(), List.of()));
+
+        indexer.fail("doc-1");
+
+        verify(vectorRepo).removeChunks(List.of(1L, 2L));
+        verify(vectorRepo).deleteDocumentEmbedding("doc-1");
+        verify(metadataRepo).updateIndexingStatus("doc-1", IndexingStatus.FAILED);
+        verify(metadataRepo, never()).updateIndexingStatus("doc-1", IndexingStatus.COMPLETED);
+    }
+
+    @Test
+    void testOnlyExpiredLeasesAreFailed() {
+        when(metadataRepo.findExpiredIndexing(eq(IndexingStatus.INDEXING), any())).thenReturn(List.of("doc-1", "doc-2"));
+        when(metadataRepo.expireIndexing(eq("doc-1"), eq(IndexingStatus.INDEXING), eq(IndexingStatus.FAILED), any()))
+                .thenReturn(1);
+        // doc-2 : bail renouvelé entre la lecture et la mise à jour
+        when(metadataRepo.expireIndexing(eq("doc-2"), eq(IndexingStatus.INDEXING), eq(IndexingStatus.FAILED), any()))
+                .thenReturn(0);
+        when(vectorRepo.findChunkIds("doc-1")).thenReturn(List.of(1L));
+        when(vectorRepo.removeChunks(anyCollection())).thenReturn(new VectorRepository.ChunkRemoval(List.of(), List.of()));
+
+        indexer.failExpired();
+
+        verify(vectorRepo).removeChunks(List.of(1L));
+        verify(vectorRepo, never()).findChunkIds("doc-2");
+    }
+
+    @Test
+    void testLeasesOfThisInstanceAreRenewedUntilCompletion() {
+        indexer.begin("doc-1");
+        indexer.renewLeases();
+        verify(metadataRepo).renewIndexingHeartbeat(eq(List.of("doc-1")), eq(IndexingStatus.INDEXING), any());
+
+        indexer.complete("doc-1");
+        indexer.renewLeases();
+        verify(metadataRepo, times(1)).renewIndexingHeartbeat(anyCollection(), any(), any());
+    }
+
+    @Test
+    void testNearDuplicatesAreLinkedInsteadOfEmbedded() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+        String disclaimer = "This document is confidential and intended solely for the use of the addressee.";
+        String variant = "This document is confidential and intended solely for the use of the addressee!";
+
+        List<DocumentChunk> first = indexer.embed(DOCUMENT, 0, List.of(disclaimer, "Quarterly revenue grew.", variant));
+        indexer.store(first);
+
+        assertNull(first.get(0).getDuplicateOf());
+        assertEquals(first.get(0).getId(), first.get(2).getDuplicateOf());
+        assertNull(first.get(2).getEmbedding());
+        verify(embeddingBatcher).embedAll(List.of(disclaimer, "Quarterly revenue grew."));
+
+        // Chunk canonique enregistré après insertion : retrouvé depuis un autre lot
+        List<DocumentChunk> second = indexer.embed(DOCUMENT, 3, List.of(variant));
+        assertEquals(first.get(0).getId(), second.get(0).getDuplicateOf());
+        assertNull(first.get(1).getSimhash()); // trop court pour une empreinte
+    }
+
+    @Test
+    void testNearDuplicateOfCanonicalDeletedElsewhereIsEmbedded() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+        String disclaimer = "This document is confidential and intended solely for the use of the addressee.";
+        String variant = "This document is confidential and intended solely for the use of the addressee!";
+        // Chunk 99 supprimé par une autre instance, encore présent dans l'index local
+        nearDuplicates.add(99, SimHash.of(disclaimer));
+        when(vectorRepo.lockChunks(anyCollection())).thenReturn(Set.of());
+
+        List<DocumentChunk> chunks = indexer.embed(DOCUMENT, 0, List.of(variant));
+        assertEquals(99L, chunks.get(0).getDuplicateOf());
+        indexer.store(chunks);
+
+        verify(vectorRepo).lockChunks(Set.of(99L));
+        verify(embeddingBatcher).embedAll(List.of(variant));
+        verify(vectorRepo).insertChunks(argThat(stored -> stored.size() == 1
+                && stored.get(0).getDuplicateOf() == null && stored.get(0).getEmbedding() != null));
+        // Le chunk vectorisé remplace le chunk disparu comme canonique
+        assertEquals(chunks.get(0).getId(), nearDuplicates.find(SimHash.of(disclaimer)).getAsLong());
+    }
+
+    @Test
+    void testReindexOnlyEmbedsAndWritesChangedChunks() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+        when(vectorRepo.findChunkHashes("doc-1")).thenReturn(List.of(
+                new VectorRepository.ChunkHash(10, 0, ContentHash.sha256("intro")),
+                new VectorRepository.ChunkHash(11, 1, ContentHash.sha256("old section")),
+                new VectorRepository.ChunkHash(12, 2, ContentHash.sha256("conclusion"))));
+        when(vectorRepo.removeChunks(anyCollection())).thenReturn(new VectorRepository.ChunkRemoval(List.of(), List.of()));
+
+        DocumentIndexer.ReindexResult result = indexer.reindex(DOCUMENT,
+                List.of("intro", "new section", "extra section", "conclusion"));
+
+        assertEquals(new DocumentIndexer.ReindexResult(2, 2, 1), result);
+        verify(embeddingBatcher).embedAll(List.of("new section", "extra section"));
+        verify(vectorRepo).updateChunkIndexes(new long[]{12}, new int[]{3});
+        verify(vectorRepo).removeChunks(List.of(11L));
+        verify(vectorRepo).insertChunks(argThat(chunks -> chunks.size() == 2
+                && chunks.get(0).getChunkIndex() == 1 && chunks.get(1).getChunkIndex() == 2));
+        verify(vectorRepo).refreshDocumentEmbedding("doc-1");
+    }
+
+    @Test
+    void testReindexWithSmallEditDoesNotLinkToReplacedChunk() {
+        when(vectorRepo.findEmbeddingsByHashes(anyCollection())).thenReturn(Map.of());
+        String original = "This document is confidential and intended solely for the use of the addressee.";
+        String edited = "This document is confidential and intended solely for the use of the addressee!";
+        when(vectorRepo.findChunkHashes("doc-1")).thenReturn(List.of(
+                new VectorRepository.ChunkHash(10, 0, ContentHash.sha256(original))));
+        nearDuplicates.add(10, SimHash.of(original));
+        when(vectorRepo.removeChunks(anyCollection())).thenReturn(new VectorRepository.ChunkRemoval(List.of(), List.of()));
+
+        indexer.reindex(DOCUMENT, List.of(edited));
+
+        // L'ancien chunk est supprimé dans la même transaction : le nouveau garde son propre embedding
+        verify(embeddingBatcher).embedAll(List.of(edited));
+        verify(vectorRepo).insertChunks(argThat(chunks -> chunks.size() == 1
+                && chunks.get(0).getDuplicateOf() == null && chunks.get(0).getEmbedding() != null));
+        verify(vectorRepo).removeChunks(List.of(10L));
+    }
+}
@@ -0,0 +1,86 @@
+package com.mcp.server.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentTextExtractorTest {
+
+    private DocumentTextExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new DocumentTextExtractor();
+        ReflectionTestUtils.setField(extractor, "parallelMinPages", 4);
+        ReflectionTestUtils.setField(extractor, "pagesPerRange", 3);
+        ReflectionTestUtils.setField(extractor, "parallelism", 2);
+        ReflectionTestUtils.setField(extractor, "streamingMainMemory", DataSize.ofMegabytes(1));
+        extractor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        extractor.shutdown();
+    }
+
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Page " + i + " of the quarterly report");
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    void testParallelExtractionMatchesSequentialText() throws IOException {
+        byte[] content = pdf(10);
+
+        String parallel = extractor.extractText(content, "report.pdf");
+        ReflectionTestUtils.setField(extractor, "parallelMinPages", 100);
+        String sequential = extractor.extractText(content, "report.pdf");
+
+        assertEquals(sequential, parallel);
+        assertTrue(parallel.indexOf("Page 1 ") < parallel.indexOf("Page 4 "));
+        assertTrue(parallel.indexOf("Page 9 ") < parallel.indexOf("Page 10 "));
+    }
+
+    @Test
+    void testCorruptPdfFailsInsteadOfReturningEmptyText() {
+        byte[] content = "%PDF-1.7 truncated".getBytes(StandardCharsets.US_ASCII);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> extractor.extractText(content, "report.pdf"));
+        assertTrue(error.getMessage().startsWith("Failed to extract text"));
+    }
+
+    @Test
+    void testPlainTextIsReturnedAsIs() {
+        byte[] content = "Résumé trimestriel".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("Résumé trimestriel", extractor.extractText(content, "notes.TXT"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.mcp.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class EmbeddingBatcherTest {
+
+    private EmbeddingModel embeddingModel;
+    private EmbeddingBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = mock(EmbeddingModel.class);
+        // Chaque texte "n" est vectorisé en [n]
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            List<float[]> vectors = new ArrayList<>();
+            for (String text : texts) {
+                vectors.add(new float[]{Float.parseFloat(text)});
+            }
+            return vectors;
+        });
+        batcher = new EmbeddingBatcher(embeddingModel);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(batcher, "maxTokensPerRequest", 1000);
+    }
+
+    @Test
+    void testBatchesAndKeepsOrder() {
+        List<String> texts = List.of("0", "1", "2", "3", "4", "5", "6");
+
+        List<float[]> result = batcher.embedAll(texts);
+
+        assertEquals(7, result.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(i, result.get(i)[0], 0.001);
+        }
+        verify(embeddingModel, times(3)).embed(anyList());
+    }
+
+    @Test
+    void testTokenBudgetSplitsBatches() {
+        ReflectionTestUtils.setField(batcher, "maxTokensPerRequest", 2);
+        // "1.000" = 3 tokens : un texte par requête
+        List<String> texts = List.of("1.000", "2.000");
+
+        List<float[]> result = batcher.embedAll(texts);
+
+        assertEquals(2, result.size());
+        verify(embeddingModel, times(2)).embed(anyList());
+    }
+
+    @Test
+    void testEmptyInput() {
+        assertTrue(batcher.embedAll(List.of()).isEmpty());
+        verifyNoInteractions(embeddingModel);
+    }
+}
@@ -0,0 +1,45 @@
+package com.mcp.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashEmbeddingModelTest {
+
+    private final HashEmbeddingModel model = new HashEmbeddingModel(384);
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    @Test
+    void testVectorsAreDeterministicAndNormalized() {
+        float[] vector = model.embed("Quarterly revenue grew by ten percent");
+
+        assertEquals(384, vector.length);
+        assertArrayEquals(vector, model.embed("quarterly REVENUE grew by ten percent!"));
+        assertEquals(1.0, cosine(vector, vector), 1e-5);
+    }
+
+    @Test
+    void testSharedWordsAreCloserThanUnrelatedText() {
+        float[] query = model.embed("Quarterly revenue grew by ten percent");
+
+        double related = cosine(query, model.embed("Revenue grew in the last quarter"));
+        double unrelated = cosine(query, model.embed("The cat sat on the mat"));
+
+        assertTrue(related > unrelated);
+    }
+
+    @Test
+    void testTextWithoutWordsStillHasADirection() {
+        assertEquals(1.0, cosine(model.embed("  ..."), model.embed("  ...")), 1e-5);
+        assertEquals(2, model.embed(List.of("a", "b")).size());
+    }
+}
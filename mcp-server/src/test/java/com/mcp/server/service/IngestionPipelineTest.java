@@ -0,0 +1,132 @@
+package com.mcp.server.service;
+
+import com.mcp.server.dto.DocumentMetadataView;
+import com.mcp.server.entity.DocumentChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestionPipelineTest {
+
+    private static final DocumentMetadataView DOCUMENT = new DocumentMetadataView("doc-1", "notes.txt", null,
+            "txt", "alice", List.of(), LocalDateTime.now());
+
+    private DocumentTextExtractor textExtractor;
+    private DocumentIndexer documentIndexer;
+    private IngestionPipeline pipeline;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        textExtractor = mock(DocumentTextExtractor.class);
+        documentIndexer = mock(DocumentIndexer.class);
+        when(documentIndexer.embed(any(), anyInt(), anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(2);
+            List<DocumentChunk> chunks = new ArrayList<>();
+            texts.forEach(text -> chunks.add(new DocumentChunk()));
+            return chunks;
+        });
+        pipeline = new IngestionPipeline(textExtractor, new WordTextChunker(2), documentIndexer);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "extractWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "embedWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "insertWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "sliceSize", 3);
+        ReflectionTestUtils.setField(pipeline, "jobRetention", Duration.ofHours(1));
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void testDocumentIsIndexedInSlices() throws Exception {
+        when(textExtractor.extractText(any(byte[].class), anyString())).thenReturn("a b c d e f g h i j k l m n");
+
+        IngestionJob job = pipeline.submit(DOCUMENT, "notes.txt", new byte[0]);
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(IngestionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7, job.getTotalChunks());
+        assertEquals(7, job.getIndexedChunks());
+        verify(documentIndexer, times(3)).store(anyList());
+        verify(documentIndexer).complete("doc-1");
+        assertSame(job, pipeline.getJob(job.getJobId()).orElseThrow());
+    }
+
+    @Test
+    void testCompletesWhenLastSliceIsInsertedBeforeExtractionEnds() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "ignored");
+        doAnswer(invocation -> {
+            Consumer<CharSequence> pageSink = invocation.getArgument(2);
+            pageSink.accept("a b c d e f ");
+            Thread.sleep(200);
+            return null;
+        }).when(textExtractor).extractPages(eq(file), anyString(), any());
+
+        IngestionJob job = pipeline.submit(DOCUMENT, "notes.txt", file);
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(IngestionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getIndexedChunks());
+        verify(documentIndexer).complete("doc-1");
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testEmbeddingFailureFailsTheJob() throws Exception {
+        when(textExtractor.extractText(any(byte[].class), anyString())).thenReturn("a b c d");
+        when(documentIndexer.embed(any(), anyInt(), anyList())).thenThrow(new IllegalStateException("quota exceeded"));
+
+        IngestionJob job = pipeline.submit(DOCUMENT, "notes.txt", new byte[0]);
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(IngestionJob.Status.FAILED, job.getStatus());
+        assertEquals("quota exceeded", job.getError());
+        verify(documentIndexer, never()).complete(anyString());
+        verify(documentIndexer).fail("doc-1");
+    }
+
+    @Test
+    void testExtractionFailureFailsTheJobAfterCleanup() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("broken.pdf"), "not a pdf");
+        doAnswer(invocation -> {
+            Consumer<CharSequence> pageSink = invocation.getArgument(2);
+            pageSink.accept("a b c d e f ");
+            Thread.sleep(100);
+            throw new RuntimeException("Failed to extract text: truncated file");
+        }).when(textExtractor).extractPages(eq(file), anyString(), any());
+
+        IngestionJob job = pipeline.submit(DOCUMENT, "broken.pdf", file);
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(IngestionJob.Status.FAILED, job.getStatus());
+        assertEquals("Failed to extract text: truncated file", job.getError());
+        verify(documentIndexer).fail("doc-1");
+        verify(documentIndexer, never()).complete(anyString());
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mcp.server.service;
+
+import com.mcp.server.repository.VectorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NearDuplicateIndexTest {
+
+    private static final String FOOTER = "This email and any attachments are confidential and may be privileged. "
+            + "If you are not the intended recipient, please notify the sender immediately and delete this message "
+            + "from your system. Any unauthorised use, disclosure, copying or distribution of this message or its "
+            + "attachments is strictly prohibited. The company accepts no liability for any damage caused by viruses "
+            + "transmitted by this email. Registered office: 1 Example Street, London. Registered in England under number 2024.";
+
+    private NearDuplicateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearDuplicateIndex(mock(VectorRepository.class));
+        ReflectionTestUtils.setField(index, "mode", NearDuplicateIndex.Mode.LINK);
+        ReflectionTestUtils.setField(index, "maxDistance", 5);
+        ReflectionTestUtils.setField(index, "minWords", 8);
+        ReflectionTestUtils.setField(index, "maxEntries", 3);
+    }
+
+    @Test
+    void testSimHashIgnoresCaseAndPunctuation() {
+        assertEquals(SimHash.of(FOOTER), SimHash.of(FOOTER.toUpperCase().replace(".", " ;")));
+        assertTrue(SimHash.distance(SimHash.of(FOOTER), SimHash.of(FOOTER.replace("2024", "2025"))) <= 5);
+        assertTrue(SimHash.distance(SimHash.of(FOOTER),
+                SimHash.of("The quarterly report shows revenue growth in every region except the north.")) > 5);
+    }
+
+    @Test
+    void testFindsNearDuplicateThroughSharedBand() {
+        long signature = SimHash.of(FOOTER);
+        index.add(42, signature);
+
+        assertEquals(OptionalLong.of(42), index.find(signature ^ 0b101));
+        assertEquals(OptionalLong.empty(), index.find(signature ^ 0xF0F0));
+    }
+
+    @Test
+    void testRemovedChunkIsNoLongerReturned() {
+        long signature = SimHash.of(FOOTER);
+        index.add(42, signature);
+        index.add(43, signature ^ 1);
+
+        index.remove(42, signature);
+
+        assertEquals(OptionalLong.of(43), index.find(signature));
+    }
+
+    @Test
+    void testShortTextsAndDisabledModeHaveNoSignature() {
+        assertTrue(index.signature("Page 3").isEmpty());
+        assertTrue(index.signature(FOOTER).isPresent());
+
+        ReflectionTestUtils.setField(index, "mode", NearDuplicateIndex.Mode.OFF);
+        assertTrue(index.signature(FOOTER).isEmpty());
+    }
+
+    @Test
+    void testIndexStopsGrowingAtMaxEntries() {
+        for (int i = 0; i < 5; i++) {
+            index.add(i, (long) i << 40);
+        }
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.EmbeddingModelSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class QueryEmbeddingCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryEmbeddingCache cache;
+    private final AtomicInteger embedCalls = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new QueryEmbeddingCache(meterRegistry, mock(ObjectProvider.class), modelSettings("hash"));
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+        cache.init();
+    }
+
+    private static EmbeddingModelSettings modelSettings(String provider) {
+        EmbeddingModelSettings settings = new EmbeddingModelSettings();
+        ReflectionTestUtils.setField(settings, "provider", provider);
+        ReflectionTestUtils.setField(settings, "localModelUri", "");
+        ReflectionTestUtils.setField(settings, "configuredModelId", "");
+        return settings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private QueryEmbeddingCache redisCache(StringRedisTemplate redis, String provider) {
+        ObjectProvider<StringRedisTemplate> redisProvider = mock(ObjectProvider.class);
+        when(redisProvider.getIfAvailable()).thenReturn(redis);
+        QueryEmbeddingCache redisCache = new QueryEmbeddingCache(new SimpleMeterRegistry(), redisProvider,
+                modelSettings(provider));
+        ReflectionTestUtils.setField(redisCache, "maxSize", 2);
+        ReflectionTestUtils.setField(redisCache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(redisCache, "redisEnabled", true);
+        ReflectionTestUtils.setField(redisCache, "redisKeyPrefix", "mcp:query-embedding:");
+        redisCache.init();
+        return redisCache;
+    }
+
+    private float[] embed(String query) {
+        embedCalls.incrementAndGet();
+        return new float[]{query.length()};
+    }
+
+    @Test
+    void testNormalizedQueriesHitLocalTier() {
+        float[] first = cache.getOrEmbed("What is  Quantum computing?", this::embed);
+        float[] second = cache.getOrEmbed("  what is quantum COMPUTING? ", this::embed);
+
+        assertSame(first, second);
+        assertEquals(1, embedCalls.get());
+        assertEquals(1.0, meterRegistry.counter("mcp.query.embedding.cache",
+                "result", "hit", "tier", "local").count());
+    }
+
+    @Test
+    void testOriginalQueryIsEmbedded() {
+        List<String> embedded = new ArrayList<>();
+
+        cache.getOrEmbed("  Apple  Q3 revenue ", query -> {
+            embedded.add(query);
+            return embed(query);
+        });
+        cache.getOrEmbedAll(List.of("US GDP", "us  gdp"), batch -> {
+            embedded.addAll(batch);
+            return batch.stream().map(this::embed).toList();
+        });
+
+        assertEquals(List.of("  Apple  Q3 revenue ", "US GDP"), embedded);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        cache.getOrEmbed("a", this::embed);
+        cache.getOrEmbed("b", this::embed);
+        cache.getOrEmbed("a", this::embed);
+        cache.getOrEmbed("c", this::embed); // évince "b"
+
+        cache.getOrEmbed("a", this::embed);
+        assertEquals(3, embedCalls.get());
+        cache.getOrEmbed("b", this::embed);
+        assertEquals(4, embedCalls.get());
+    }
+
+    @Test
+    void testExpiredEntriesAreRecomputed() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMillis(1));
+        cache.getOrEmbed("query", this::embed);
+        Thread.sleep(10);
+        cache.getOrEmbed("query", this::embed);
+
+        assertEquals(2, embedCalls.get());
+    }
+
+    @Test
+    void testBatchEmbedsOnlyMissingQueriesInOneCall() {
+        float[] cached = cache.getOrEmbed("known", this::embed);
+        List<List<String>> calls = new ArrayList<>();
+
+        List<float[]> vectors = cache.getOrEmbedAll(List.of("new one", "Known", "NEW  one", "other"), batch -> {
+            calls.add(batch);
+            return batch.stream().map(this::embed).toList();
+        });
+
+        assertEquals(List.of(List.of("new one", "other")), calls);
+        assertEquals(4, vectors.size());
+        assertSame(cached, vectors.get(1));
+        assertSame(vectors.get(0), vectors.get(2));
+        assertEquals(5.0f, vectors.get(3)[0]);
+    }
+
+    @Test
+    void testVectorEncodingRoundTrip() {
+        float[] vector = {0.25f, -1.5f, 3.0f};
+        assertArrayEquals(vector, QueryEmbeddingCache.decode(QueryEmbeddingCache.encode(vector)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRedisEntriesAreSeparatedByModel() {
+        Map<String, String> store = new HashMap<>();
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(invocation -> store.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> store.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+
+        redisCache(redis, "openai").getOrEmbed("vector search", this::embed);
+        redisCache(redis, "openai").getOrEmbed("vector search", this::embed);
+        assertEquals(1, embedCalls.get());
+
+        // Une réplique configurée avec un autre modèle ne relit pas ces vecteurs
+        redisCache(redis, "onnx").getOrEmbed("vector search", this::embed);
+        assertEquals(2, embedCalls.get());
+        assertEquals(2, store.size());
+    }
+}
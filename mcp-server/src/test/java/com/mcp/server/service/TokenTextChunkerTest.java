@@ -0,0 +1,114 @@
+package com.mcp.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenTextChunkerTest {
+
+    private static String sampleText() {
+        StringBuilder text = new StringBuilder();
+        for (int paragraph = 0; paragraph < 20; paragraph++) {
+            for (int sentence = 0; sentence < 8; sentence++) {
+                text.append("Sentence ").append(paragraph).append('-').append(sentence)
+                        .append(" talks about vectors, embeddings and retrieval pipelines. ");
+            }
+            text.append("\n\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    void testChunksRespectTokenBudget() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+
+        List<String> chunks = chunker.chunk(sampleText());
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(TokenEstimator.count(chunk) <= 100, "Chunk over budget: " + chunk);
+        }
+    }
+
+    @Test
+    void testCutsOnSentenceBoundaries() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 0);
+
+        List<String> chunks = chunker.chunk(sampleText());
+
+        for (String chunk : chunks.subList(0, chunks.size() - 1)) {
+            assertTrue(chunk.endsWith("."), "Chunk does not end a sentence: " + chunk);
+        }
+    }
+
+    @Test
+    void testConsecutiveChunksOverlap() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+
+        List<String> chunks = chunker.chunk(sampleText());
+
+        String previous = chunks.get(0);
+        String next = chunks.get(1);
+        String firstWords = next.substring(0, next.indexOf(' ', next.indexOf(' ') + 1));
+        assertTrue(previous.contains(firstWords), "No overlap between chunks");
+    }
+
+    @Test
+    void testStreamingMatchesSinglePass() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+        String text = sampleText();
+
+        List<String> streamed = new ArrayList<>();
+        TextChunker.ChunkWriter writer = chunker.open(streamed::add);
+        for (int i = 0; i < text.length(); i += 37) {
+            writer.append(text.substring(i, Math.min(text.length(), i + 37)));
+        }
+        writer.finish();
+
+        assertEquals(chunker.chunk(text), streamed);
+    }
+
+    @Test
+    void testShortAndBlankText() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+
+        assertEquals(List.of("Hello world."), chunker.chunk("  Hello world.\n"));
+        assertTrue(chunker.chunk("   \n  ").isEmpty());
+    }
+
+    @Test
+    void testOversizedWordIsHardCut() {
+        TokenTextChunker chunker = new TokenTextChunker(10, 0);
+
+        List<String> chunks = chunker.chunk("x".repeat(100));
+
+        assertEquals(100, chunks.stream().mapToInt(String::length).sum());
+        chunks.forEach(chunk -> assertTrue(TokenEstimator.count(chunk) <= 10));
+    }
+
+    @Test
+    void testOversizedWordWithOverlapStillProgresses() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+
+        List<String> chunks = chunker.chunk("x".repeat(20000));
+
+        // 100 tokens de 4 lettres par chunk, pas de recouvrement à l'intérieur du mot coupé
+        assertEquals(50, chunks.size());
+        assertEquals(20000, chunks.stream().mapToInt(String::length).sum());
+    }
+
+    @Test
+    void testTextWithoutSpacesIsChunkedInBoundedSize() {
+        TokenTextChunker chunker = new TokenTextChunker(100, 20);
+        String text = "向量数据库支持语义检索。".repeat(2000);
+
+        List<String> chunks = chunker.chunk(text);
+
+        assertTrue(chunks.size() <= TokenEstimator.count(text) / 100 + 1, "Too many chunks: " + chunks.size());
+        assertEquals(text.length(), chunks.stream().mapToInt(String::length).sum());
+        chunks.forEach(chunk -> assertTrue(TokenEstimator.count(chunk) <= 100));
+    }
+}
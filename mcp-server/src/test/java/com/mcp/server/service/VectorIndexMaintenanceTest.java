@@ -0,0 +1,121 @@
+package com.mcp.server.service;
+
+import com.mcp.server.config.VectorIndexSettings;
+import com.mcp.server.config.VectorIndexSettings.IndexType;
+import com.mcp.server.config.VectorIndexSettings.StorageMode;
+import com.mcp.server.dto.VectorIndexStats;
+import com.mcp.server.repository.VectorRepository;
+import com.mcp.server.repository.VectorRepository.ChunkTableStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VectorIndexMaintenanceTest {
+
+    private VectorRepository vectorRepo;
+    private VectorIndexSettings indexSettings;
+    private VectorIndexMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        vectorRepo = mock(VectorRepository.class);
+        when(vectorRepo.withAdvisoryLock(anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        indexSettings = new VectorIndexSettings();
+        ReflectionTestUtils.setField(indexSettings, "indexType", IndexType.IVFFLAT);
+        ReflectionTestUtils.setField(indexSettings, "storageMode", StorageMode.FULL);
+        ReflectionTestUtils.setField(indexSettings, "ivfflatAutoLists", true);
+        ReflectionTestUtils.setField(indexSettings, "hnswM", 16);
+        ReflectionTestUtils.setField(indexSettings, "hnswEfConstruction", 64);
+
+        maintenance = new VectorIndexMaintenance(vectorRepo, indexSettings);
+        ReflectionTestUtils.setField(maintenance, "analyzeThreshold", 0.1);
+        ReflectionTestUtils.setField(maintenance, "listsDriftThreshold", 0.5);
+        ReflectionTestUtils.setField(maintenance, "deadTupleThreshold", 0.2);
+    }
+
+    @Test
+    void testRebuildsIvfflatWhenListsDrift() {
+        when(vectorRepo.tableStats()).thenReturn(new ChunkTableStats(1_000_000, 0, 0));
+        when(vectorRepo.findIndexDefinition(VectorIndexSettings.INDEX_NAME))
+                .thenReturn(Optional.of("CREATE INDEX x ON document_chunks USING ivfflat (embedding vector_cosine_ops) WITH (lists='100')"));
+
+        VectorIndexStats stats = maintenance.run();
+
+        assertEquals(1000, stats.targetLists());
+        assertEquals(1000, stats.currentLists());
+        verify(vectorRepo).replaceIndexConcurrently(eq(VectorIndexSettings.INDEX_NAME),
+                contains("lists = 1000"), anyString());
+        verify(vectorRepo, never()).analyze();
+        assertSame(stats, maintenance.lastRun());
+    }
+
+    @Test
+    void testAnalyzesAfterBulkIngest() {
+        when(vectorRepo.tableStats()).thenReturn(new ChunkTableStats(10_000, 0, 5_000));
+        when(vectorRepo.findIndexDefinition(anyString()))
+                .thenReturn(Optional.of("CREATE INDEX x ON document_chunks USING ivfflat (embedding vector_cosine_ops) WITH (lists='100')"));
+
+        VectorIndexStats stats = maintenance.run();
+
+        verify(vectorRepo).analyze();
+        verify(vectorRepo, never()).replaceIndexConcurrently(anyString(), anyString(), anyString());
+        assertEquals(1, stats.actions().size());
+    }
+
+    @Test
+    void testVacuumsWhenTooManyDeadTuples() {
+        ReflectionTestUtils.setField(indexSettings, "indexType", IndexType.HNSW);
+        when(vectorRepo.tableStats()).thenReturn(new ChunkTableStats(700, 300, 0));
+        when(vectorRepo.findIndexDefinition(anyString()))
+                .thenReturn(Optional.of("CREATE INDEX x ON document_chunks USING hnsw (embedding vector_cosine_ops)"
+                        + " WITH (m='16', ef_construction='64')"));
+
+        VectorIndexStats stats = maintenance.run();
+
+        verify(vectorRepo).vacuumAnalyze();
+        verify(vectorRepo, never()).replaceIndexConcurrently(anyString(), anyString(), anyString());
+        assertEquals(List.of("vacuum"), stats.actions());
+    }
+
+    @Test
+    void testSkipsWhenAnotherInstanceHoldsTheLock() {
+        when(vectorRepo.withAdvisoryLock(anyLong(), any())).thenReturn(false);
+
+        assertNull(maintenance.run());
+
+        verify(vectorRepo, never()).tableStats();
+    }
+
+    @Test
+    void testReplacesIndexOfAnotherTypeInBackground() {
+        ReflectionTestUtils.setField(indexSettings, "indexType", IndexType.HNSW);
+        when(vectorRepo.tableStats()).thenReturn(new ChunkTableStats(10_000, 0, 0));
+        when(vectorRepo.findIndexDefinition(anyString()))
+                .thenReturn(Optional.of("CREATE INDEX x ON document_chunks USING ivfflat (embedding vector_cosine_ops) WITH (lists='100')"));
+
+        VectorIndexStats stats = maintenance.run();
+
+        verify(vectorRepo).replaceIndexConcurrently(eq(VectorIndexSettings.INDEX_NAME), contains("USING hnsw"), anyString());
+        assertEquals(List.of("rebuild hnsw"), stats.actions());
+    }
+
+    @Test
+    void testReportsFailure() {
+        when(vectorRepo.tableStats()).thenThrow(new IllegalStateException("connection refused"));
+
+        VectorIndexStats stats = maintenance.run();
+
+        assertEquals("connection refused", stats.error());
+        assertTrue(stats.actions().isEmpty());
+    }
+}